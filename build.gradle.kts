@@ -20,6 +20,8 @@ java {
 repositories {
     mavenLocal()
 
+    mavenCentral()
+
     //paper
     maven {
         url = uri("https://repo.papermc.io/repository/maven-public/")
@@ -28,6 +30,8 @@ repositories {
 
 dependencies {
     paperweight.paperDevBundle("1.19.3-R0.1-SNAPSHOT")
+
+    testImplementation("org.junit.jupiter:junit-jupiter:5.9.2")
 }
 
 tasks {
@@ -48,6 +52,10 @@ tasks {
     filteringCharset = Charsets.UTF_8.name() // We want UTF-8 for everything
   }
 
+  test {
+    useJUnitPlatform()
+  }
+
   /*
   reobfJar {
     // This is an example of how you might change the output location for reobfJar. It's recommended not to do this
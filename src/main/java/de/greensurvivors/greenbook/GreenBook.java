@@ -3,16 +3,19 @@ package de.greensurvivors.greenbook;
 import de.greensurvivors.greenbook.commands.CoinCmd;
 import de.greensurvivors.greenbook.commands.GreenBookCmd;
 import de.greensurvivors.greenbook.config.MainConfig;
+import de.greensurvivors.greenbook.config.WireLessConfig;
 import de.greensurvivors.greenbook.listener.LiftListener;
 import de.greensurvivors.greenbook.listener.PaintingListener;
 import de.greensurvivors.greenbook.listener.ShelfListener;
 import de.greensurvivors.greenbook.listener.WirelessListener;
+import de.greensurvivors.greenbook.wireless.ChannelKey;
 import org.bukkit.Bukkit;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.HashMap;
 import java.util.logging.Level;
 
 public class GreenBook extends JavaPlugin {
@@ -73,6 +76,9 @@ public class GreenBook extends JavaPlugin {
 	@Override
 	public void onDisable() {
 		PaintingListener.inst().clear();
-		WirelessListener.inst().clear();
+		//clearing the listener forgets the channel states, so they are taken while clearing and saved afterwards
+		HashMap<ChannelKey, Integer> channelStates = WirelessListener.inst().clearAndGetChannelStates();
+		//write all wireless channels still waiting to get saved
+		WireLessConfig.inst().flush(channelStates);
 	}
 }
@@ -1,6 +1,7 @@
 package de.greensurvivors.greenbook;
 
 import org.bukkit.permissions.Permissible;
+import org.bukkit.permissions.PermissionAttachmentInfo;
 
 
 public enum PermissionUtils {
@@ -34,6 +35,21 @@ public enum PermissionUtils {
     GREENBOOK_SHELF_EMPTYHAND(GREENBOOK_ROOT.get() + ".shelf.set.emptyhand"),
     GREENBOOK_SHELF_SNEAK(GREENBOOK_ROOT.get() + ".shelf.set.require_sneak"),
 
+    //get notified about throttled wireless channels
+    GREENBOOK_WIRELESS_NOTIFY(GREENBOOK_ROOT.get() + "wireless.notify"),
+    //scan the chunks around for receiver signs, like the compatibility mode does
+    GREENBOOK_WIRELESS_SCAN(GREENBOOK_ROOT.get() + "wireless.scan"),
+    //rebuild the saved receivers from the region files of the worlds
+    GREENBOOK_WIRELESS_REBUILD(GREENBOOK_ROOT.get() + "wireless.rebuild"),
+    //see how many receivers are cached and how well the cache works
+    GREENBOOK_WIRELESS_STATS(GREENBOOK_ROOT.get() + "wireless.stats"),
+    //ignore all wireless quotas
+    GREENBOOK_WIRELESS_QUOTA_BYPASS(GREENBOOK_ROOT.get() + "wireless.quota.bypass"),
+    //raise the wireless quotas, followed by the new limit, like greenbook.wireless.quota.receivers.5000
+    GREENBOOK_WIRELESS_QUOTA_CHANNEL_RECEIVERS(GREENBOOK_ROOT.get() + "wireless.quota.channelreceivers."),
+    GREENBOOK_WIRELESS_QUOTA_RECEIVERS(GREENBOOK_ROOT.get() + "wireless.quota.receivers."),
+    GREENBOOK_WIRELESS_QUOTA_CHANNELS(GREENBOOK_ROOT.get() + "wireless.quota.channels."),
+
     GREENBOOK_PAINTING_EDIT(GREENBOOK_ROOT.get() + "painting.edit"),
     GREENBOOK_PAINTING_RANGE(GREENBOOK_ROOT.get() + "painting.set.range"),
 
@@ -65,4 +81,30 @@ public enum PermissionUtils {
 
         return false;
     }
+
+    /**
+     * get the highest number a permissible has a permission for, like prefix.100
+     *
+     * @param permissible something with permissions to check for
+     * @param prefix permission the number follows, ending with a dot
+     * @param defaultValue value if no permission with a number was found
+     * @return the highest number, or the default value if it is higher
+     */
+    public static int getHighestNumber(Permissible permissible, PermissionUtils prefix, int defaultValue) {
+        int highest = defaultValue;
+
+        for (PermissionAttachmentInfo info : permissible.getEffectivePermissions()) {
+            String permission = info.getPermission();
+
+            if (info.getValue() && permission.startsWith(prefix.get())) {
+                try {
+                    highest = Math.max(highest, Integer.parseInt(permission.substring(prefix.get().length())));
+                } catch (NumberFormatException ignored) {
+                    //not a number, nothing to raise
+                }
+            }
+        }
+
+        return highest;
+    }
 }
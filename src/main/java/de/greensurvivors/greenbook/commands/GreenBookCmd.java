@@ -45,6 +45,9 @@ public class GreenBookCmd implements CommandExecutor, TabCompleter {
                 case PaintingCmd.SUBCOMMAND -> {
                     return PaintingCmd.handleCommand(sender, args);
                 }
+                case WirelessCmd.SUBCOMMAND -> {
+                    return WirelessCmd.handleCommand(sender, args);
+                }
                 default -> {
                     return false;
                 }
@@ -83,6 +86,10 @@ public class GreenBookCmd implements CommandExecutor, TabCompleter {
             if(PermissionUtils.hasPermission(sender, PermissionUtils.GREENBOOK_PAINTING_RANGE)){
                 result.add(PaintingCmd.SUBCOMMAND);
             }
+            if (PermissionUtils.hasPermission(sender, PermissionUtils.GREENBOOK_WIRELESS_SCAN, PermissionUtils.GREENBOOK_WIRELESS_REBUILD,
+                    PermissionUtils.GREENBOOK_WIRELESS_STATS)) {
+                result.add(WirelessCmd.SUBCOMMAND);
+            }
 
             result = result.stream().filter(s -> s.startsWith(args[0].toLowerCase())).toList();
         } else if (args.length > 1){
@@ -93,6 +100,9 @@ public class GreenBookCmd implements CommandExecutor, TabCompleter {
                 case PaintingCmd.SUBCOMMAND -> {
                     return PaintingCmd.handleTab(sender, args);
                 }
+                case WirelessCmd.SUBCOMMAND -> {
+                    return WirelessCmd.handleTab(sender, args);
+                }
             }
         }
 
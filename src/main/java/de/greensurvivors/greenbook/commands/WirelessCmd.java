@@ -0,0 +1,237 @@
+package de.greensurvivors.greenbook.commands;
+
+import de.greensurvivors.greenbook.PermissionUtils;
+import de.greensurvivors.greenbook.config.ReceiverCounts;
+import de.greensurvivors.greenbook.config.WireLessConfig;
+import de.greensurvivors.greenbook.language.Lang;
+import de.greensurvivors.greenbook.listener.WirelessListener;
+import de.greensurvivors.greenbook.utils.Misc;
+import de.greensurvivors.greenbook.wireless.ChannelKey;
+import de.greensurvivors.greenbook.wireless.CostTracker;
+import de.greensurvivors.greenbook.wireless.ReceiverCache;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+/**
+ * subcommand to manage wireless redstone
+ */
+public class WirelessCmd {
+    public static final String SUBCOMMAND = "wireless";
+
+    private static final String SCAN = "scan";
+    private static final String REBUILD = "rebuild";
+    private static final String STATS = "stats";
+    private static final String OWNERS = "owners";
+    private static final String TOP = "top";
+    private static final String TOP_CHANNELS = "channels";
+    //radius in chunks, if none was given
+    private static final int DEFAULT_SCAN_RADIUS = 4;
+    //a scan never reaches further than this many chunks
+    private static final int MAX_SCAN_RADIUS = 32;
+    //number of owners in the report, if none was given
+    private static final int DEFAULT_OWNER_COUNT = 10;
+    //the report never lists more owners than this
+    private static final int MAX_OWNER_COUNT = 100;
+    //number of owners or channels listed by the cost report
+    private static final int TOP_COUNT = 10;
+    //the windows of the cost report, in minutes
+    private static final int[] TOP_WINDOWS = {1, 5, CostTracker.MAX_WINDOW_MINUTES};
+
+    /**
+     * execute wireless subcommand
+     * <br>/greenbook wireless scan [radius] - scan the loaded chunks around the player for receiver signs, like the compatibility mode does
+     * <br>/greenbook wireless rebuild [world] - find the receiver signs of all (or one) worlds in their region files, without loading chunks
+     * <br>/greenbook wireless stats - show the size, limits and statistics of the receiver cache
+     * <br>/greenbook wireless owners [count] - list the owners with the most receivers
+     * <br>/greenbook wireless top [channels] - list the owners (or channels) that cost the most time in the last 1, 5 and 15 minutes
+     * @param sender  Source of the command
+     * @param args    Passed command arguments
+     * @return        true, if enough args where given.
+     */
+    protected static boolean handleCommand(@NotNull CommandSender sender, @NotNull String[] args) {
+        if (args.length >= 2 && args[1].equalsIgnoreCase(SCAN)) {
+            if (PermissionUtils.hasPermission(sender, PermissionUtils.GREENBOOK_WIRELESS_SCAN)) {
+                if (sender instanceof Player player) {
+                    int radius = DEFAULT_SCAN_RADIUS;
+
+                    if (args.length >= 3) {
+                        if (Misc.isInt(args[2])) {
+                            radius = Math.max(0, Math.min(MAX_SCAN_RADIUS, Integer.parseInt(args[2])));
+                        } else { //the given radius was not an integer
+                            sender.sendMessage(Lang.build(Lang.NO_NUMBER.get().replace(Lang.VALUE, args[2])));
+                            return false;
+                        }
+                    }
+
+                    int queued = WirelessListener.inst().scanAround(sender, player.getLocation(), radius);
+                    sender.sendMessage(Lang.build(Lang.WIRELESS_SCAN_STARTED.get().replace(Lang.VALUE, String.valueOf(queued))));
+                } else {
+                    sender.sendMessage(Lang.build(Lang.NOT_PLAYER_SELF.get()));
+                }
+            } else { //no permission
+                sender.sendMessage(Lang.build(Lang.NO_PERMISSION_COMMAND.get()));
+            }
+        } else if (args.length >= 2 && args[1].equalsIgnoreCase(REBUILD)) {
+            if (PermissionUtils.hasPermission(sender, PermissionUtils.GREENBOOK_WIRELESS_REBUILD)) {
+                List<World> worlds;
+
+                if (args.length >= 3) {
+                    World world = Bukkit.getWorld(args[2]);
+
+                    if (world == null) {
+                        sender.sendMessage(Lang.build(Lang.NO_SUCH_WORLD.get().replace(Lang.VALUE, args[2])));
+                        return true;
+                    }
+                    worlds = List.of(world);
+                } else {
+                    worlds = Bukkit.getWorlds();
+                }
+
+                if (!WirelessListener.inst().scanRegionFiles(sender, worlds)) {
+                    sender.sendMessage(Lang.build(Lang.WIRELESS_REGION_SCAN_RUNNING.get()));
+                }
+            } else { //no permission
+                sender.sendMessage(Lang.build(Lang.NO_PERMISSION_COMMAND.get()));
+            }
+        } else if (args.length >= 2 && args[1].equalsIgnoreCase(STATS)) {
+            if (PermissionUtils.hasPermission(sender, PermissionUtils.GREENBOOK_WIRELESS_STATS)) {
+                ReceiverCache cache = WirelessListener.inst().getReceiverCache();
+
+                sender.sendMessage(Lang.build(Lang.WIRELESS_CACHE_CHANNELS.get().replace(Lang.VALUE, String.valueOf(cache.size())).replace(Lang.MAX, String.valueOf(cache.getMaxChannels()))));
+                sender.sendMessage(Lang.build(Lang.WIRELESS_CACHE_RECEIVERS.get().replace(Lang.VALUE, String.valueOf(cache.getReceiverCount())).replace(Lang.MAX, String.valueOf(cache.getMaxReceivers()))));
+                sender.sendMessage(Lang.build(Lang.WIRELESS_CACHE_HITS.get().replace(Lang.VALUE, String.valueOf(cache.getHits())).replace(Lang.MAX, String.valueOf(cache.getHits() + cache.getMisses()))));
+                sender.sendMessage(Lang.build(Lang.WIRELESS_CACHE_EVICTIONS.get().replace(Lang.VALUE, String.valueOf(cache.getEvictions()))));
+            } else { //no permission
+                sender.sendMessage(Lang.build(Lang.NO_PERMISSION_COMMAND.get()));
+            }
+        } else if (args.length >= 2 && args[1].equalsIgnoreCase(OWNERS)) {
+            if (PermissionUtils.hasPermission(sender, PermissionUtils.GREENBOOK_WIRELESS_STATS)) {
+                int count = DEFAULT_OWNER_COUNT;
+
+                if (args.length >= 3) {
+                    if (Misc.isInt(args[2])) {
+                        count = Math.max(1, Math.min(MAX_OWNER_COUNT, Integer.parseInt(args[2])));
+                    } else { //the given count was not an integer
+                        sender.sendMessage(Lang.build(Lang.NO_NUMBER.get().replace(Lang.VALUE, args[2])));
+                        return false;
+                    }
+                }
+
+                ReceiverCounts counts = WireLessConfig.inst().getReceiverCounts();
+                sender.sendMessage(Lang.build(Lang.WIRELESS_OWNERS_HEADER.get().replace(Lang.VALUE, String.valueOf(count))));
+
+                for (UUID owner : counts.getTopOwners(count)) {
+                    sender.sendMessage(Lang.build(Lang.WIRELESS_OWNERS_ENTRY.get().replace(Lang.PLAYER, getOwnerName(owner)).
+                            replace(Lang.VALUE, String.valueOf(counts.getOwnerReceivers(owner))).
+                            replace(Lang.MAX, String.valueOf(counts.getOwnerChannels(owner)))));
+                }
+            } else { //no permission
+                sender.sendMessage(Lang.build(Lang.NO_PERMISSION_COMMAND.get()));
+            }
+        } else if (args.length >= 2 && args[1].equalsIgnoreCase(TOP)) {
+            if (PermissionUtils.hasPermission(sender, PermissionUtils.GREENBOOK_WIRELESS_STATS)) {
+                CostTracker costTracker = WirelessListener.inst().getCostTracker();
+
+                if (!costTracker.isEnabled()) {
+                    sender.sendMessage(Lang.build(Lang.WIRELESS_TOP_DISABLED.get()));
+                } else if (args.length >= 3 && args[2].equalsIgnoreCase(TOP_CHANNELS)) {
+                    sender.sendMessage(Lang.build(Lang.WIRELESS_TOP_CHANNELS_HEADER.get()));
+
+                    for (ChannelKey channelKey : costTracker.getTopChannels(CostTracker.MAX_WINDOW_MINUTES, TOP_COUNT)) {
+                        sendCosts(sender, channelKey.getDisplayName(), costTracker.getChannelCosts(channelKey));
+                    }
+                } else {
+                    sender.sendMessage(Lang.build(Lang.WIRELESS_TOP_OWNERS_HEADER.get()));
+
+                    for (UUID owner : costTracker.getTopOwners(CostTracker.MAX_WINDOW_MINUTES, TOP_COUNT)) {
+                        sendCosts(sender, getOwnerName(owner), costTracker.getOwnerCosts(owner));
+                    }
+                }
+            } else { //no permission
+                sender.sendMessage(Lang.build(Lang.NO_PERMISSION_COMMAND.get()));
+            }
+        } else { //not enough arguments
+            sender.sendMessage(Lang.build(Lang.NOT_ENOUGH_ARGS.get()));
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @param owner owner of channels, null for global channels
+     * @return the name of the owner, or its uuid if the name is unknown
+     */
+    private static @NotNull String getOwnerName(@Nullable UUID owner) {
+        if (owner == null) {
+            return Lang.WIRELESS_OWNERS_GLOBAL.get();
+        }
+
+        String ownerName = Bukkit.getOfflinePlayer(owner).getName();
+        return ownerName == null ? owner.toString() : ownerName;
+    }
+
+    /**
+     * tell the sender the costs of a channel or owner in every window of the report
+     * @param sender Source of the command
+     * @param name name of the channel or owner
+     * @param costs costs of the channel or owner, null if it didn't cost anything lately
+     */
+    private static void sendCosts(@NotNull CommandSender sender, @NotNull String name, @Nullable CostTracker.Costs costs) {
+        if (costs == null) {
+            return;
+        }
+
+        StringJoiner millis = new StringJoiner("/"), signals = new StringJoiner("/"), receivers = new StringJoiner("/");
+        for (int minutes : TOP_WINDOWS) {
+            millis.add(String.format("%.1f", costs.getNanos(minutes) / 1_000_000d));
+            signals.add(String.valueOf(costs.getSignals(minutes)));
+            receivers.add(String.valueOf(costs.getReceivers(minutes)));
+        }
+
+        sender.sendMessage(Lang.build(Lang.WIRELESS_TOP_ENTRY.get().replace(Lang.PLAYER, name).
+                replace(Lang.VALUE, millis.toString()).replace(Lang.MAX, signals.toString()).replace(Lang.PLAYER2, receivers.toString())));
+    }
+
+    /**
+     * Requests a list of possible completions for a command argument.
+     * @param sender  Source of the command
+     * @param args    Passed command arguments
+     * @return        the subcommands the sender has permission for, if second argument, world names if rebuilding, else empty list
+     */
+    protected static @NotNull List<String> handleTab(@NotNull CommandSender sender, @NotNull String[] args) {
+        if (args.length == 2) {
+            List<String> subCommands = new ArrayList<>();
+
+            if (PermissionUtils.hasPermission(sender, PermissionUtils.GREENBOOK_WIRELESS_SCAN)) {
+                subCommands.add(SCAN);
+            }
+            if (PermissionUtils.hasPermission(sender, PermissionUtils.GREENBOOK_WIRELESS_REBUILD)) {
+                subCommands.add(REBUILD);
+            }
+            if (PermissionUtils.hasPermission(sender, PermissionUtils.GREENBOOK_WIRELESS_STATS)) {
+                subCommands.add(STATS);
+                subCommands.add(OWNERS);
+                subCommands.add(TOP);
+            }
+
+            return subCommands.stream().filter(s -> s.startsWith(args[1].toLowerCase())).toList();
+        } else if (args.length == 3 && args[1].equalsIgnoreCase(TOP) && PermissionUtils.hasPermission(sender, PermissionUtils.GREENBOOK_WIRELESS_STATS)) {
+            return TOP_CHANNELS.startsWith(args[2].toLowerCase()) ? List.of(TOP_CHANNELS) : Collections.emptyList();
+        } else if (args.length == 3 && args[1].equalsIgnoreCase(REBUILD) && PermissionUtils.hasPermission(sender, PermissionUtils.GREENBOOK_WIRELESS_REBUILD)) {
+            return Bukkit.getWorlds().stream().map(World::getName).filter(s -> s.toLowerCase().startsWith(args[2].toLowerCase())).toList();
+        }
+
+        return Collections.emptyList();
+    }
+}
@@ -1,38 +1,45 @@
 package de.greensurvivors.greenbook.config;
 
-import com.google.gson.*;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import de.greensurvivors.greenbook.GreenBook;
 import de.greensurvivors.greenbook.GreenLogger;
-import org.apache.commons.io.FileUtils;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * this class keeps track of all wireless receivers per channel.
- * Because of access time, we are using json with our own decoder
+ * reads the json files older versions kept per wireless channel. Receivers are stored in the {@link ReceiverStore} now,
+ * channels get moved there from their old file the first time they are read.
  */
 public class ChannelConfig {
     //pattern to extract a string from json
     private static final Pattern quoteMarkPattern = Pattern.compile("\"(.*?)\"");
-    //using json (implemented by google)
-    private static final Gson gson = new Gson();
+    //file extension of channels in the legacy json format
+    public static final String LEGACY_EXTENSION = ".json";
     //todo
     private HashSet<Location> locations = null;
-    //path to the file of this channel
+    //receivers of worlds that are not loaded right now, they get moved into the store as well
+    private final ArrayList<ReceiverCodec.UnloadedReceiver> unloadedReceivers = new ArrayList<>();
+    //path to the file of this channel, without file extension
     private final String path;
+    //resolves the worlds of the receivers, might get called from every thread
+    private final @NotNull Function<@NotNull String, @Nullable World> worldByName;
 
     //mother folder of all channels
     public static final String FOLDER = "receiverFiles";
@@ -41,138 +48,150 @@ public class ChannelConfig {
      * new config for the channel, uuid combination
      * @param channel wireless channel
      * @param playerUUID uuid of the player owning the channel. If no uuid was given (null), global is assumed
+     * @param worldByName get a loaded world by its name, null if there is none. Has to be safe to call from every thread
      */
-    public ChannelConfig(@NotNull String channel, @Nullable String playerUUID) {
+    public ChannelConfig(@NotNull String channel, @Nullable String playerUUID, @NotNull Function<@NotNull String, @Nullable World> worldByName) {
         if (playerUUID == null) {
-            this.path = FOLDER + File.separator + channel + ".json";
+            this.path = FOLDER + File.separator + channel;
         } else {
-            this.path = FOLDER + File.separator + playerUUID + File.separator + channel + ".json";
+            this.path = FOLDER + File.separator + playerUUID + File.separator + channel;
         }
+        this.worldByName = worldByName;
     }
 
-
     /**
-     * Save given locations of to file.
-     * Please note: You can't load a channel without saving it first
+     * config of an already existing file
+     * @param path path of the channel file, relative to the data folder and without file extension
+     * @param worldByName get a loaded world by its name, null if there is none
      */
-    public void saveCfg(@NotNull HashSet<Location> locations) {
-        File file = new File(GreenBook.inst().getDataFolder(), path);
-
-        // try to create a file
-        if (!file.isFile()) {
-            try {
-                file.createNewFile();
-            } catch (IOException e) {
-                //didn't work
-                GreenLogger.log(Level.SEVERE, "couldn't create new File: " + file.getPath());
-                GreenLogger.log(Level.SEVERE, e.getMessage());
-                //throw new RuntimeException(e);
-            }
-        }
+    private ChannelConfig(@NotNull String path, @NotNull Function<@NotNull String, @Nullable World> worldByName) {
+        this.path = path;
+        this.worldByName = worldByName;
+    }
 
-        //array holding all the json objects that end up saved to file
-        JsonArray jsonArray = new JsonArray();
+    /**
+     * get the config of an already existing channel file, for example found while listing the channel folder
+     * @param path path of the channel file, relative to the data folder and without file extension
+     * @param worldByName get a loaded world by its name, null if there is none. Has to be safe to call from every thread
+     * @return new config of this file
+     */
+    public static @NotNull ChannelConfig fromPath(@NotNull String path, @NotNull Function<@NotNull String, @Nullable World> worldByName) {
+        return new ChannelConfig(path, worldByName);
+    }
 
-        //loop through all given locations and serialize them to json objects
-        for (Location location : locations) {
-            //json object holding a location
-            JsonObject jsonLocation = new JsonObject();
+    /**
+     * @return path to the file of this channel, relative to the data folder and without file extension
+     */
+    public @NotNull String getPath() {
+        return path;
+    }
 
-            //serialize the important information
-            jsonLocation.addProperty("world", gson.toJson(location.getWorld().getName()));
-            jsonLocation.addProperty("x", gson.toJson(location.getBlockX()));
-            jsonLocation.addProperty("y", gson.toJson(location.getBlockY()));
-            jsonLocation.addProperty("z", gson.toJson(location.getBlockZ()));
+    /**
+     * @return receivers of worlds that weren't loaded while reading, they are not part of {@link #getSet()}.
+     * Empty until the set was read
+     */
+    public @NotNull List<ReceiverCodec.UnloadedReceiver> getUnloadedReceivers() {
+        return unloadedReceivers;
+    }
 
-            //add serialize location
-            jsonArray.add(jsonLocation);
-        }
+    /**
+     * delete the files of this channel, after it was moved into the {@link ReceiverStore}
+     */
+    public void delete() {
+        File file = new File(GreenBook.inst().getDataFolder(), path + LEGACY_EXTENSION);
 
         try {
-            //json to string and safe to utf8 file
-            FileUtils.writeStringToFile(file, gson.toJson(jsonArray), StandardCharsets.UTF_8);
+            Files.deleteIfExists(file.toPath());
         } catch (IOException e) {
-            //error
-            GreenLogger.log(Level.SEVERE, "couldn't write file " + file.getPath());
-            GreenLogger.log(Level.SEVERE, "Data will be lost!");
-            GreenLogger.log(Level.SEVERE, e.getMessage());
-            //throw new RuntimeException(e);
+            GreenLogger.log(Level.WARNING, "couldn't delete file " + file.getPath(), e);
         }
     }
 
     /**
-     * todo
-     * @return
+     * get the saved receivers of this channel
+     * @return the set of saved receiver locations or null if this channel has no file or it couldn't get read
      */
     public @Nullable HashSet<Location> getSet() {
         if (locations == null) {
-            File file = new File(GreenBook.inst().getDataFolder(), path);
+            locations = getLegacySet();
+        }
 
-            if (!file.isFile()) {
-                return null;
-            }
+        return locations;
+    }
+
+    /**
+     * read a channel saved in the legacy json format
+     * @return the set of saved receiver locations or null if there is no json file or it couldn't get read
+     */
+    private @Nullable HashSet<Location> getLegacySet() {
+        File file = new File(GreenBook.inst().getDataFolder(), path + LEGACY_EXTENSION);
 
-            try {
-                JsonElement setElement = JsonParser.parseReader(new FileReader(file));
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (FileReader reader = new FileReader(file, StandardCharsets.UTF_8)) {
+            JsonElement setElement = JsonParser.parseReader(reader);
+
+            if (setElement.isJsonArray()) {
+                HashSet<Location> locations = new HashSet<>();
 
-                if (setElement.isJsonArray()) {
-                    locations = new HashSet<>();
+                for (JsonElement locationElement : setElement.getAsJsonArray()) {
+                    if (locationElement.isJsonObject()) {
+                        JsonElement tempElement = locationElement.getAsJsonObject().get("world");
 
-                    for (JsonElement locationElement : setElement.getAsJsonArray()) {
-                        if (locationElement.isJsonObject()) {
-                            JsonElement tempElement = locationElement.getAsJsonObject().get("world");
+                        if (tempElement != null && tempElement.isJsonPrimitive()) {
+                            Matcher matcher = quoteMarkPattern.matcher(tempElement.getAsString());
+                            if (matcher.matches()) {
+                                String worldName = matcher.group(1);
+                                tempElement = locationElement.getAsJsonObject().get("x");
 
-                            if (tempElement != null && tempElement.isJsonPrimitive()) {
-                                Matcher matcher = quoteMarkPattern.matcher(tempElement.getAsString());
-                                if (matcher.matches()) {
-                                    String worldName = matcher.group(1);
-                                    tempElement = locationElement.getAsJsonObject().get("x");
+                                if (tempElement != null && tempElement.isJsonPrimitive()) {
+                                    int x = tempElement.getAsInt();
 
+                                    tempElement = locationElement.getAsJsonObject().get("y");
                                     if (tempElement != null && tempElement.isJsonPrimitive()) {
-                                        int x = tempElement.getAsInt();
+                                        int y = tempElement.getAsInt();
 
-                                        tempElement = locationElement.getAsJsonObject().get("y");
+                                        tempElement = locationElement.getAsJsonObject().get("z");
                                         if (tempElement != null && tempElement.isJsonPrimitive()) {
-                                            int y = tempElement.getAsInt();
+                                            int z = tempElement.getAsInt();
 
-                                            tempElement = locationElement.getAsJsonObject().get("z");
-                                            if (tempElement != null && tempElement.isJsonPrimitive()) {
-                                                int z = tempElement.getAsInt();
+                                            World world = worldByName.apply(worldName);
 
-                                                World world = Bukkit.getWorld(worldName);
-
-                                                if (world != null) {
-                                                    locations.add(new Location(world, x, y, z));
-                                                } else {
-                                                    GreenLogger.log(Level.WARNING, "world unknown: '" + worldName + "'");
-                                                }
+                                            if (world != null) {
+                                                locations.add(new Location(world, x, y, z));
                                             } else {
-                                                GreenLogger.log(Level.WARNING, "z not primitive");
+                                                //the json format doesn't know the uuid of the world
+                                                unloadedReceivers.add(new ReceiverCodec.UnloadedReceiver(null, worldName, x, y, z));
                                             }
                                         } else {
-                                            GreenLogger.log(Level.WARNING, "y not primitive");
+                                            GreenLogger.log(Level.WARNING, "z not primitive");
                                         }
                                     } else {
-                                        GreenLogger.log(Level.WARNING, "x not primitive");
+                                        GreenLogger.log(Level.WARNING, "y not primitive");
                                     }
+                                } else {
+                                    GreenLogger.log(Level.WARNING, "x not primitive");
                                 }
-                            } else {
-                                GreenLogger.log(Level.WARNING, "world not primitive");
                             }
                         } else {
-                            GreenLogger.log(Level.WARNING, "Location not Object");
+                            GreenLogger.log(Level.WARNING, "world not primitive");
                         }
+                    } else {
+                        GreenLogger.log(Level.WARNING, "Location not Object");
                     }
-
-                    return locations;
-                } else {
-                    GreenLogger.log(Level.WARNING, "not array");
                 }
 
-            } catch (FileNotFoundException e) {
-                GreenLogger.log(Level.WARNING, "couldn't load file " + file.getPath(), e);
+                return locations;
+            } else {
+                GreenLogger.log(Level.WARNING, "not array");
             }
+
+        } catch (IOException | JsonParseException e) {
+            GreenLogger.log(Level.WARNING, "couldn't load file " + file.getPath(), e);
         }
+
         return null;
     }
 }
@@ -0,0 +1,125 @@
+package de.greensurvivors.greenbook.config;
+
+import de.greensurvivors.greenbook.GreenLogger;
+import de.greensurvivors.greenbook.wireless.ChannelKey;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * the last signal strength every wireless channel was set to, so it survives a restart.
+ * Without it, the first physics update of every transmitter after a restart would look like a change
+ * and update all receivers of its channel, even though their levers never changed.
+ * <br>
+ * version 1:
+ * <pre>
+ * int          magic "GBWC"
+ * byte         version
+ * varint       number of channels
+ * per channel:
+ *   boolean      true, if the channel has an owner
+ *   long, long   owner uuid (most, least significant bits), only if it has one
+ *   utf          channel
+ *   byte         signal strength of the channel, 0 to 15
+ * </pre>
+ */
+public class ChannelStateFile {
+    //"GBWC", marks a file as greenbook wireless channel states
+    private static final int MAGIC = 0x47425743;
+    //increase if the format changes, older versions have to stay readable
+    private static final byte VERSION = 1;
+
+    private final @NotNull File file;
+
+    /**
+     * @param file the file the states are saved in, doesn't have to exist
+     */
+    public ChannelStateFile(@NotNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * read the saved states
+     * @return the signal strength of every channel, empty if the file doesn't exist or is broken
+     */
+    public @NotNull HashMap<ChannelKey, Integer> read() {
+        HashMap<ChannelKey, Integer> states = new HashMap<>();
+        if (!file.isFile()) {
+            return states;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a channel state file");
+            }
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("unknown version " + version);
+            }
+
+            int channels = ReceiverCodec.readVarInt(in);
+            for (int i = 0; i < channels; i++) {
+                UUID owner = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+                states.put(ChannelKey.of(owner, in.readUTF()), (int) in.readByte());
+            }
+        } catch (IOException e) {
+            GreenLogger.log(Level.WARNING, "couldn't read wireless channel states from " + file.getPath() + ", every channel will update its receivers once.", e);
+            states.clear();
+        }
+
+        return states;
+    }
+
+    /**
+     * replace the saved states. The new file gets written completely, before it replaces the old one
+     * @param states the signal strength of every channel
+     */
+    public void write(@NotNull Map<ChannelKey, Integer> states) {
+        File tempFile = new File(file.getPath() + ".tmp");
+
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(tempFile);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                ReceiverCodec.writeVarInt(out, states.size());
+
+                for (Map.Entry<ChannelKey, Integer> entry : states.entrySet()) {
+                    UUID owner = entry.getKey().getOwner();
+                    out.writeBoolean(owner != null);
+                    if (owner != null) {
+                        out.writeLong(owner.getMostSignificantBits());
+                        out.writeLong(owner.getLeastSignificantBits());
+                    }
+                    out.writeUTF(entry.getKey().getChannel());
+                    out.writeByte(entry.getValue());
+                }
+
+                out.flush();
+                fileOut.getFD().sync();
+            }
+
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            GreenLogger.log(Level.WARNING, "couldn't save wireless channel states to " + file.getPath() + ".", e);
+        }
+    }
+}
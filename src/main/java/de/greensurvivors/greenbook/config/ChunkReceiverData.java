@@ -0,0 +1,194 @@
+package de.greensurvivors.greenbook.config;
+
+import de.greensurvivors.greenbook.GreenBook;
+import de.greensurvivors.greenbook.GreenLogger;
+import de.greensurvivors.greenbook.wireless.ChannelKey;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+
+/**
+ * the wireless receivers of a chunk, saved in the persistent data container of the chunk itself.
+ * This way a chunk always knows its own receivers, even if the receiver store gets lost,
+ * and loading a chunk can tell which receivers it has without looking at a single sign.
+ * <br>
+ * version 1:
+ * <pre>
+ * byte         version
+ * varint       number of channels
+ * per channel:
+ *   boolean      true, if the channel has an owner
+ *   long, long   owner uuid (most, least significant bits), only if it has one
+ *   utf          channel
+ *   varint       number of receivers of this channel in the chunk
+ *   per receiver:
+ *     byte         x (upper 4 bits) and z (lower 4 bits) inside the chunk
+ *     varint       zigzag encoded y
+ * </pre>
+ * Only ever use this from the main thread.
+ */
+public final class ChunkReceiverData {
+    //key of the data in the persistent data container of a chunk
+    private static final NamespacedKey RECEIVERS_KEY = new NamespacedKey(GreenBook.inst(), "wirelessReceivers");
+    private static final byte VERSION = 1;
+
+    private ChunkReceiverData() {
+    }
+
+    /**
+     * read the receivers saved in a chunk
+     * @param chunk loaded chunk
+     * @return the block locations of the receivers per owner and channel, empty if the chunk has none or the data is broken
+     */
+    public static @NotNull HashMap<ChannelKey, HashSet<Location>> read(@NotNull Chunk chunk) {
+        HashMap<ChannelKey, HashSet<Location>> result = new HashMap<>();
+        byte[] data = chunk.getPersistentDataContainer().get(RECEIVERS_KEY, PersistentDataType.BYTE_ARRAY);
+        if (data == null) {
+            return result;
+        }
+
+        World world = chunk.getWorld();
+        int baseX = chunk.getX() << 4, baseZ = chunk.getZ() << 4;
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("unknown version " + version);
+            }
+
+            int channels = ReceiverCodec.readVarInt(in);
+            for (int i = 0; i < channels; i++) {
+                UUID owner = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+                ChannelKey channelKey = ChannelKey.of(owner, in.readUTF());
+
+                int receivers = ReceiverCodec.readVarInt(in);
+                HashSet<Location> locations = result.computeIfAbsent(channelKey, k -> new HashSet<>());
+                for (int j = 0; j < receivers; j++) {
+                    int xz = in.readUnsignedByte();
+                    int y = ReceiverCodec.unZigzag(ReceiverCodec.readVarInt(in));
+
+                    locations.add(new Location(world, baseX + (xz >> 4), y, baseZ + (xz & 0xF)));
+                }
+            }
+        } catch (IOException e) {
+            GreenLogger.log(Level.WARNING, "couldn't read the wireless receivers of chunk " + chunk.getX() + ", " + chunk.getZ() + " in world " + world.getName() + ", ignoring them.", e);
+            result.clear();
+        }
+
+        return result;
+    }
+
+    /**
+     * overwrite the receivers saved in a chunk
+     * @param chunk loaded chunk
+     * @param receivers the block locations of all receivers in the chunk per owner and channel
+     */
+    public static void write(@NotNull Chunk chunk, @NotNull Map<ChannelKey, ? extends Collection<Location>> receivers) {
+        PersistentDataContainer container = chunk.getPersistentDataContainer();
+
+        int channels = 0;
+        for (Collection<Location> locations : receivers.values()) {
+            if (!locations.isEmpty()) {
+                channels++;
+            }
+        }
+        if (channels == 0) {
+            container.remove(RECEIVERS_KEY);
+            return;
+        }
+
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(byteOut)) {
+            out.writeByte(VERSION);
+            ReceiverCodec.writeVarInt(out, channels);
+
+            for (Map.Entry<ChannelKey, ? extends Collection<Location>> entry : receivers.entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    continue;
+                }
+
+                UUID owner = entry.getKey().getOwner();
+                out.writeBoolean(owner != null);
+                if (owner != null) {
+                    out.writeLong(owner.getMostSignificantBits());
+                    out.writeLong(owner.getLeastSignificantBits());
+                }
+                out.writeUTF(entry.getKey().getChannel());
+
+                ReceiverCodec.writeVarInt(out, entry.getValue().size());
+                for (Location location : entry.getValue()) {
+                    out.writeByte(((location.getBlockX() & 0xF) << 4) | (location.getBlockZ() & 0xF));
+                    ReceiverCodec.writeVarInt(out, ReceiverCodec.zigzag(location.getBlockY()));
+                }
+            }
+        } catch (IOException e) {
+            //can't happen writing to memory
+            GreenLogger.log(Level.SEVERE, "couldn't encode the wireless receivers of chunk " + chunk.getX() + ", " + chunk.getZ(), e);
+            return;
+        }
+
+        container.set(RECEIVERS_KEY, PersistentDataType.BYTE_ARRAY, byteOut.toByteArray());
+    }
+
+    /**
+     * save a receiver in the chunk it is in, if the chunk is loaded
+     * @param channelKey owner and channel of the receiver
+     * @param location block location of the receiver sign
+     */
+    public static void add(@NotNull ChannelKey channelKey, @NotNull Location location) {
+        Chunk chunk = getLoadedChunk(location);
+
+        if (chunk != null) {
+            HashMap<ChannelKey, HashSet<Location>> receivers = read(chunk);
+
+            if (receivers.computeIfAbsent(channelKey, k -> new HashSet<>()).add(location.toBlockLocation())) {
+                write(chunk, receivers);
+            }
+        }
+    }
+
+    /**
+     * remove a receiver from the chunk it is in, if the chunk is loaded
+     * @param channelKey owner and channel of the receiver
+     * @param location block location of the receiver sign
+     */
+    public static void remove(@NotNull ChannelKey channelKey, @NotNull Location location) {
+        Chunk chunk = getLoadedChunk(location);
+
+        if (chunk != null) {
+            HashMap<ChannelKey, HashSet<Location>> receivers = read(chunk);
+            HashSet<Location> locations = receivers.get(channelKey);
+
+            if (locations != null && locations.remove(location.toBlockLocation())) {
+                write(chunk, receivers);
+            }
+        }
+    }
+
+    /**
+     * @return the chunk the location is in, or null if it isn't loaded
+     */
+    private static @Nullable Chunk getLoadedChunk(@NotNull Location location) {
+        World world = location.getWorld();
+        int chunkX = location.getBlockX() >> 4, chunkZ = location.getBlockZ() >> 4;
+
+        return world.isChunkLoaded(chunkX, chunkZ) ? world.getChunkAt(chunkX, chunkZ) : null;
+    }
+}
@@ -0,0 +1,79 @@
+package de.greensurvivors.greenbook.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * compact binary encoding shared by the wireless files, like the {@link ReceiverStore}, {@link ChunkReceiverData} and {@link ChannelStateFile}.
+ * Ints are written as varints, signed ones like coordinates zigzag encoded first, so small values of both signs need few bytes.
+ */
+public final class ReceiverCodec {
+    /**
+     * a receiver in a world that isn't loaded right now, maybe it will be later
+     * @param worldUUID uuid of the world, null if only its name is known
+     * @param worldName name of the world
+     * @param x block x of the receiver sign
+     * @param y block y of the receiver sign
+     * @param z block z of the receiver sign
+     */
+    public record UnloadedReceiver(@Nullable UUID worldUUID, @NotNull String worldName, int x, int y, int z) {
+    }
+
+    private ReceiverCodec() {
+    }
+
+    /**
+     * write an int using as few bytes as possible, 7 bits per byte. Small positive values need only one byte.
+     * @param out output to write to
+     * @param value unsigned value, zigzag encode signed values first
+     * @throws IOException if the output fails
+     */
+    static void writeVarInt(@NotNull DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.writeByte(value);
+    }
+
+    /**
+     * read an int written by {@link #writeVarInt(DataOutput, int)}
+     * @param in input to read from
+     * @return the unsigned value
+     * @throws IOException if the input fails or the varint is longer than 5 bytes
+     */
+    static int readVarInt(@NotNull DataInput in) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("varint too long");
+    }
+
+    /**
+     * map signed to unsigned ints, so small negative values stay small: 0, -1, 1, -2, 2 ... to 0, 1, 2, 3, 4 ...
+     */
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * reverse {@link #zigzag(int)}
+     */
+    static int unZigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
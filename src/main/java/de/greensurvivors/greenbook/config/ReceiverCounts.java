@@ -0,0 +1,172 @@
+package de.greensurvivors.greenbook.config;
+
+import de.greensurvivors.greenbook.wireless.ChannelKey;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * number of saved receivers per channel, and number of receivers and channels per owner.
+ * Kept up to date by the {@link ReceiverStore}, so it includes channels that aren't cached and receivers in worlds that are not loaded.
+ * <br>
+ * Only the io thread changes the counts, every thread may read them. A change is visible right after the store saved it.
+ * Receivers that got accepted, but are not saved yet, can get reserved, so they count right away.
+ */
+public class ReceiverCounts {
+    //owner of global channels in the owner maps, a concurrent map doesn't allow null keys
+    private static final UUID GLOBAL_OWNER = new UUID(0, 0);
+
+    /**
+     * all counts at once, so replacing them never shows a mix of old and new counts
+     */
+    private static final class Counts {
+        //number of receivers per channel, channels without receivers are not included
+        private final ConcurrentHashMap<ChannelKey, Integer> channelReceivers = new ConcurrentHashMap<>();
+        //number of receivers and of channels with receivers per owner
+        private final ConcurrentHashMap<UUID, Integer> ownerReceivers = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<UUID, Integer> ownerChannels = new ConcurrentHashMap<>();
+
+        /**
+         * change the number of receivers of a channel, it never drops below 0
+         */
+        private void change(@NotNull ChannelKey channelKey, int delta) {
+            int oldCount = channelReceivers.getOrDefault(channelKey, 0);
+            int newCount = Math.max(0, oldCount + delta);
+            if (newCount == oldCount) {
+                return;
+            }
+
+            UUID owner = toOwnerKey(channelKey.getOwner());
+            if (newCount == 0) {
+                channelReceivers.remove(channelKey);
+                ownerChannels.merge(owner, -1, ReceiverCounts::sumOrRemove);
+            } else {
+                channelReceivers.put(channelKey, newCount);
+
+                if (oldCount == 0) {
+                    ownerChannels.merge(owner, 1, ReceiverCounts::sumOrRemove);
+                }
+            }
+            ownerReceivers.merge(owner, newCount - oldCount, ReceiverCounts::sumOrRemove);
+        }
+    }
+
+    //the counts right now. Changes modify them, replacing them swaps in new ones
+    private volatile @NotNull Counts counts = new Counts();
+    //receivers that got accepted, but the store didn't save yet, per channel and per owner.
+    //placing receivers in quick succession can't get around a quota this way
+    private final ConcurrentHashMap<ChannelKey, Integer> reservedChannelReceivers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Integer> reservedOwnerReceivers = new ConcurrentHashMap<>();
+
+    /**
+     * change the number of receivers of a channel, it never drops below 0. Call only from the io thread
+     * @param channelKey owner and channel
+     * @param delta receivers added (positive) or removed (negative)
+     */
+    void change(@NotNull ChannelKey channelKey, int delta) {
+        counts.change(channelKey, delta);
+    }
+
+    /**
+     * replace all counts. The new counts get built first, readers see either the old or the new ones. Call only from the io thread
+     * @param channelCounts number of receivers per channel
+     */
+    void replaceAll(@NotNull Map<ChannelKey, Integer> channelCounts) {
+        Counts newCounts = new Counts();
+        channelCounts.forEach(newCounts::change);
+
+        counts = newCounts;
+    }
+
+    /**
+     * count receivers right away, that got accepted but will get saved later. May get called from every thread
+     * @param channelKey owner and channel
+     * @param count number of receivers
+     */
+    public void reserve(@NotNull ChannelKey channelKey, int count) {
+        reservedChannelReceivers.merge(channelKey, count, ReceiverCounts::sumOrRemove);
+        reservedOwnerReceivers.merge(toOwnerKey(channelKey.getOwner()), count, ReceiverCounts::sumOrRemove);
+    }
+
+    /**
+     * stop counting reserved receivers, because they got saved or won't get saved at all. May get called from every thread
+     * @param channelKey owner and channel
+     * @param count number of receivers
+     */
+    public void release(@NotNull ChannelKey channelKey, int count) {
+        reserve(channelKey, -count);
+    }
+
+    /**
+     * @return the key of an owner in the owner maps
+     */
+    private static @NotNull UUID toOwnerKey(@Nullable UUID owner) {
+        return owner == null ? GLOBAL_OWNER : owner;
+    }
+
+    /**
+     * @return the sum, or null if it is 0, so the entry gets removed
+     */
+    private static @Nullable Integer sumOrRemove(int oldValue, int delta) {
+        int sum = oldValue + delta;
+        return sum <= 0 ? null : sum;
+    }
+
+    /**
+     * @param channelKey owner and channel
+     * @return number of saved and reserved receivers of the channel
+     */
+    public int getReceivers(@NotNull ChannelKey channelKey) {
+        return counts.channelReceivers.getOrDefault(channelKey, 0) + reservedChannelReceivers.getOrDefault(channelKey, 0);
+    }
+
+    /**
+     * @param owner owner of channels, null for global channels
+     * @return number of saved and reserved receivers of all channels of the owner together
+     */
+    public int getOwnerReceivers(@Nullable UUID owner) {
+        UUID ownerKey = toOwnerKey(owner);
+
+        return counts.ownerReceivers.getOrDefault(ownerKey, 0) + reservedOwnerReceivers.getOrDefault(ownerKey, 0);
+    }
+
+    /**
+     * @param owner owner of channels, null for global channels
+     * @return number of channels of the owner with saved or reserved receivers
+     */
+    public int getOwnerChannels(@Nullable UUID owner) {
+        UUID ownerKey = toOwnerKey(owner);
+        Counts currentCounts = counts;
+        int channels = currentCounts.ownerChannels.getOrDefault(ownerKey, 0);
+
+        //only a few receivers are reserved at any time
+        for (ChannelKey channelKey : reservedChannelReceivers.keySet()) {
+            if (ownerKey.equals(toOwnerKey(channelKey.getOwner())) && !currentCounts.channelReceivers.containsKey(channelKey)) {
+                channels++;
+            }
+        }
+
+        return channels;
+    }
+
+    /**
+     * @param limit maximum number of owners
+     * @return the owners with the most saved receivers, the one with the most first. Null stands for global channels
+     */
+    public @NotNull List<@Nullable UUID> getTopOwners(int limit) {
+        List<@Nullable UUID> owners = new ArrayList<>();
+
+        counts.ownerReceivers.entrySet().stream().
+                sorted(Map.Entry.<UUID, Integer>comparingByValue(Comparator.reverseOrder())).
+                limit(Math.max(0, limit)).
+                forEach(entry -> owners.add(GLOBAL_OWNER.equals(entry.getKey()) ? null : entry.getKey()));
+
+        return owners;
+    }
+}
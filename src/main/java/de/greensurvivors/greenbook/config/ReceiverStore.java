@@ -0,0 +1,925 @@
+package de.greensurvivors.greenbook.config;
+
+import de.greensurvivors.greenbook.GreenLogger;
+import de.greensurvivors.greenbook.wireless.ChannelKey;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/**
+ * single file, append only storage of all wireless receivers.
+ * Every added or removed receiver gets appended as a record, so saving a receiver never rewrites other channels.
+ * Adding a receiver that is already stored, or removing one that isn't, appends nothing.
+ * On open the file gets scanned once to index the offsets of the records of every channel,
+ * loading a channel reads only its own records. Once enough records are outdated, the file should get compacted
+ * by writing only the receivers still alive into a new file, that replaces the old one. See {@link #needsCompaction()}.
+ * <br>
+ * Not threadsafe, all methods have to get called from the same (io) thread.
+ * <br>
+ * version 1:
+ * <pre>
+ * int          magic "GBWS"
+ * byte         version
+ * records:
+ *   int          length of the payload
+ *   int          crc32 of the payload
+ *   payload:
+ *     byte         type
+ *     WORLD:       long, long world uuid; utf world name. Defines the next entry of the world table
+ *     ADD, REMOVE: owner (byte 0 for global, or 1 followed by long, long uuid); utf channel;
+ *                  varint index in world table; varint zigzag encoded x, y, z
+ * </pre>
+ * A record at the end of the file that was cut short or doesn't match its checksum was never committed and gets cut off.
+ * Broken records followed by valid ones mean the file got damaged, they get skipped and a copy of the file is kept.
+ */
+public class ReceiverStore {
+    //"GBWS", marks a file as greenbook wireless store
+    private static final int MAGIC = 0x47425753;
+    //increase if the format changes, older versions have to stay readable
+    private static final byte VERSION = 1;
+    //magic + version
+    private static final int HEADER_LENGTH = 5;
+    //length + crc
+    private static final int RECORD_HEADER_LENGTH = 8;
+    //no valid record is longer than this, a utf string has at most 65535 bytes
+    private static final int MAX_PAYLOAD_LENGTH = 1 << 17;
+    //record types
+    private static final byte
+            TYPE_WORLD = 0,
+            TYPE_ADD = 1,
+            TYPE_REMOVE = 2;
+    //compact, if at least this many records are outdated...
+    private static final int MIN_GARBAGE_TO_COMPACT = 1024;
+    //...and they are at least this part of all records
+    private static final double MIN_GARBAGE_RATIO_TO_COMPACT = 0.5;
+
+    /**
+     * a receiver like it is stored, the world might not be loaded
+     */
+    private record StoredReceiver(int worldIndex, int x, int y, int z) {
+    }
+
+    /**
+     * growable list of record offsets
+     */
+    private static class Offsets {
+        private long[] offsets = new long[4];
+        private int size = 0;
+
+        private void add(long offset) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+
+            offsets[size++] = offset;
+        }
+    }
+
+    private final @NotNull File file;
+    //resolve the worlds of the world table, the same way the server does, but without asking it
+    private final @NotNull Function<@NotNull UUID, @Nullable World> worldByUUID;
+    private final @NotNull Function<@NotNull String, @Nullable World> worldByName;
+    private @Nullable FileChannel fileChannel = null;
+    //where the next record gets appended
+    private long endOffset;
+
+    //world table, a record references a world by its index
+    private final ArrayList<UUID> worldUUIDs = new ArrayList<>();
+    private final ArrayList<String> worldNames = new ArrayList<>();
+    private final HashMap<UUID, Integer> worldIndices = new HashMap<>();
+    private final HashMap<String, Integer> worldIndicesByName = new HashMap<>();
+    //every channel that ever had a receiver in a world, at the index of the world
+    private final ArrayList<HashSet<ChannelKey>> worldChannels = new ArrayList<>();
+    //offsets of all add and remove records per channel, in the order they where written
+    private final HashMap<ChannelKey, Offsets> channelIndex = new HashMap<>();
+    //damaged parts of the file found while indexing, start offset to the offset of the next valid record
+    private final TreeMap<Long, Long> brokenRanges = new TreeMap<>();
+    //number of receivers per channel and owner, readable from every thread
+    private final ReceiverCounts receiverCounts = new ReceiverCounts();
+
+    //all receiver records in the file and how many of them are outdated
+    private int receiverRecords = 0, garbageRecords = 0;
+
+    /**
+     * new store, call {@link #open()} before using it.
+     * The store never asks the server for worlds, since it isn't used by the main thread.
+     * @param file the store file, will get created if it doesn't exist
+     * @param worldByUUID get a loaded world by its uuid, null if there is none. Has to be safe to call from the io thread
+     * @param worldByName get a loaded world by its name, null if there is none. Has to be safe to call from the io thread
+     */
+    public ReceiverStore(@NotNull File file, @NotNull Function<@NotNull UUID, @Nullable World> worldByUUID,
+                         @NotNull Function<@NotNull String, @Nullable World> worldByName) {
+        this.file = file;
+        this.worldByUUID = worldByUUID;
+        this.worldByName = worldByName;
+    }
+
+    /**
+     * @return true if the file is open
+     */
+    public boolean isOpen() {
+        return fileChannel != null;
+    }
+
+    /**
+     * open the file and index it. Records that were not committed completely get cut off.
+     * @throws IOException if the file couldn't get opened or is no store file
+     */
+    public void open() throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (fileChannel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.putInt(MAGIC).put(VERSION).flip();
+            fileChannel.write(header, 0);
+            fileChannel.force(true);
+            endOffset = HEADER_LENGTH;
+            receiverCounts.replaceAll(Map.of());
+        } else {
+            index();
+        }
+    }
+
+    /**
+     * read the file once, building the world table and the channel index.
+     * A record at the end that was never committed completely gets cut off,
+     * broken records in the middle get skipped and a copy of the damaged file is kept.
+     * @throws IOException if reading fails or the file is no store file
+     */
+    private void index() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(fileChannel.position(0))));
+        if (in.readInt() != MAGIC) {
+            throw new IOException(file.getPath() + " is not a wireless store file");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException(file.getPath() + " has an unknown version " + version);
+        }
+
+        brokenRanges.clear();
+        long fileSize = fileChannel.size();
+        long offset = HEADER_LENGTH;
+        byte[] payload = new byte[256];
+        CRC32 crc = new CRC32();
+        //receivers per channel, only while indexing. Files of older versions might add the same receiver twice,
+        //so counting the records could be off
+        HashMap<ChannelKey, HashSet<StoredReceiver>> receivers = new HashMap<>();
+        //the copy of a damaged file is only needed once
+        boolean keptCorruptCopy = false;
+
+        while (true) {
+            int length, checksum;
+
+            try {
+                length = in.readInt();
+                checksum = in.readInt();
+            } catch (EOFException e) {
+                //reached the end, maybe in the middle of a record header that never finished writing
+                break;
+            }
+
+            boolean valid = length > 0 && length <= MAX_PAYLOAD_LENGTH && offset + RECORD_HEADER_LENGTH + length <= fileSize;
+            if (valid) {
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                in.readFully(payload, 0, length);
+
+                crc.reset();
+                crc.update(payload, 0, length);
+                valid = (int) crc.getValue() == checksum;
+            }
+
+            if (!valid) {
+                long nextOffset = findNextRecord(offset + 1, fileSize);
+
+                if (nextOffset < 0) {
+                    //nothing valid follows. A record that was cut short was just never committed,
+                    //anything else is damage the admin might want to look at, before it gets cut off
+                    if (length <= 0 || length > MAX_PAYLOAD_LENGTH || offset + RECORD_HEADER_LENGTH + length <= fileSize) {
+                        if (!keptCorruptCopy) {
+                            keepCorruptCopy();
+                        }
+                        GreenLogger.log(Level.WARNING, "broken record in " + file.getPath() + " at " + offset + ", dropping everything after it.");
+                    }
+                    break;
+                }
+
+                //the records after the damaged part are still fine, so never cut them off
+                if (!keptCorruptCopy) {
+                    keepCorruptCopy();
+                    keptCorruptCopy = true;
+                }
+                GreenLogger.log(Level.WARNING, "broken records in " + file.getPath() + " from " + offset + " to " + nextOffset + ", skipping them.");
+                brokenRanges.put(offset, nextOffset);
+                offset = nextOffset;
+                in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(fileChannel.position(offset))));
+                continue;
+            }
+
+            DataInputStream payloadIn = new DataInputStream(new ByteArrayInputStream(payload, 0, length));
+            byte type = payloadIn.readByte();
+            if (type == TYPE_WORLD) {
+                addToWorldTable(new UUID(payloadIn.readLong(), payloadIn.readLong()), payloadIn.readUTF());
+            } else {
+                ChannelKey channelKey = readChannelKey(payloadIn);
+                channelIndex.computeIfAbsent(channelKey, k -> new Offsets()).add(offset);
+
+                StoredReceiver receiver = readReceiver(payloadIn);
+                if (receiver.worldIndex() < worldChannels.size()) {
+                    worldChannels.get(receiver.worldIndex()).add(channelKey);
+                }
+                if (type == TYPE_ADD) {
+                    receivers.computeIfAbsent(channelKey, k -> new HashSet<>()).add(receiver);
+                } else {
+                    receivers.computeIfAbsent(channelKey, k -> new HashSet<>()).remove(receiver);
+                }
+
+                receiverRecords++;
+                if (type == TYPE_REMOVE) {
+                    //the remove record and the record it cancels
+                    garbageRecords += 2;
+                }
+            }
+
+            offset += RECORD_HEADER_LENGTH + length;
+        }
+
+        //cut off everything that wasn't committed, so new records follow the last valid one
+        if (offset < fileSize) {
+            fileChannel.truncate(offset);
+            fileChannel.force(true);
+        }
+        endOffset = offset;
+
+        HashMap<ChannelKey, Integer> counts = new HashMap<>(receivers.size());
+        for (Map.Entry<ChannelKey, HashSet<StoredReceiver>> entry : receivers.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().size());
+        }
+        receiverCounts.replaceAll(counts);
+    }
+
+    /**
+     * search the next position a valid record starts at, after a broken one
+     * @param from first offset to check
+     * @param fileSize size of the file
+     * @return offset of the next record with a valid length and checksum, -1 if there is none
+     * @throws IOException if reading fails
+     */
+    private long findNextRecord(long from, long fileSize) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(1 << 16);
+        CRC32 crc = new CRC32();
+
+        //the windows overlap by a record header, so no header gets split between two of them
+        for (long windowStart = from; windowStart + RECORD_HEADER_LENGTH <= fileSize; windowStart += window.capacity() - RECORD_HEADER_LENGTH) {
+            window.clear();
+            window.limit((int) Math.min(window.capacity(), fileSize - windowStart));
+            readFully(window, windowStart);
+
+            for (int i = 0; i + RECORD_HEADER_LENGTH <= window.limit(); i++) {
+                int length = window.getInt(i);
+                long recordStart = windowStart + i;
+
+                if (length > 0 && length <= MAX_PAYLOAD_LENGTH && recordStart + RECORD_HEADER_LENGTH + length <= fileSize) {
+                    ByteBuffer payload = ByteBuffer.allocate(length);
+                    readFully(payload, recordStart + RECORD_HEADER_LENGTH);
+
+                    crc.reset();
+                    crc.update(payload.array());
+                    if ((int) crc.getValue() == window.getInt(i + Integer.BYTES)) {
+                        return recordStart;
+                    }
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * copy the damaged file next to it, before anything of it gets dropped
+     */
+    private void keepCorruptCopy() {
+        File corruptFile = new File(file.getParentFile(), file.getName() + ".corrupt");
+
+        try {
+            Files.copy(file.toPath(), corruptFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            GreenLogger.log(Level.WARNING, file.getPath() + " is damaged, kept a copy of it in " + corruptFile.getPath());
+        } catch (IOException e) {
+            GreenLogger.log(Level.WARNING, "couldn't keep a copy of the damaged " + file.getPath(), e);
+        }
+    }
+
+    /**
+     * close the file, everything was already written.
+     */
+    public void close() {
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } catch (IOException e) {
+                GreenLogger.log(Level.WARNING, "couldn't close " + file.getPath(), e);
+            }
+
+            fileChannel = null;
+        }
+    }
+
+    /**
+     * make sure everything appended is on disk
+     * @return true if everything is on disk, false if the store isn't open or syncing failed
+     */
+    public boolean sync() {
+        if (fileChannel == null) {
+            return false;
+        }
+
+        try {
+            fileChannel.force(false);
+            return true;
+        } catch (IOException e) {
+            GreenLogger.log(Level.SEVERE, "couldn't sync " + file.getPath(), e);
+            return false;
+        }
+    }
+
+    /**
+     * @return number of receivers per channel and owner, may be read from every thread
+     */
+    public @NotNull ReceiverCounts getReceiverCounts() {
+        return receiverCounts;
+    }
+
+    /**
+     * @param channelKey owner and channel
+     * @return true if the store has ever seen this channel
+     */
+    public boolean contains(@NotNull ChannelKey channelKey) {
+        return channelIndex.containsKey(channelKey);
+    }
+
+    /**
+     * load the receivers of a channel, reading only its own records
+     * @param channelKey owner and channel
+     * @return the receivers of this channel in loaded worlds, or null if the channel isn't stored
+     */
+    public @Nullable HashSet<Location> load(@NotNull ChannelKey channelKey) {
+        if (!channelIndex.containsKey(channelKey) || fileChannel == null) {
+            return null;
+        }
+
+        try {
+            return toLocations(readReceivers(channelKey));
+        } catch (IOException e) {
+            GreenLogger.log(Level.SEVERE, "couldn't load wireless channel " + channelKey + " from " + file.getPath(), e);
+            return null;
+        }
+    }
+
+    /**
+     * read the receivers of a channel, reading only its own records
+     * @param channelKey owner and channel
+     * @return all receivers of the channel still alive, including those of worlds that are currently not loaded
+     * @throws IOException if reading fails
+     */
+    private @NotNull LinkedHashSet<StoredReceiver> readReceivers(@NotNull ChannelKey channelKey) throws IOException {
+        LinkedHashSet<StoredReceiver> receivers = new LinkedHashSet<>();
+        Offsets offsets = channelIndex.get(channelKey);
+        if (offsets == null) {
+            return receivers;
+        }
+
+        for (int i = 0; i < offsets.size; i++) {
+            DataInputStream payloadIn = readRecord(offsets.offsets[i]);
+            byte type = payloadIn.readByte();
+            readChannelKey(payloadIn);
+            StoredReceiver receiver = readReceiver(payloadIn);
+
+            if (type == TYPE_ADD) {
+                receivers.add(receiver);
+            } else {
+                receivers.remove(receiver);
+            }
+        }
+
+        return receivers;
+    }
+
+    /**
+     * load the receivers of all channels, reading the file once from start to end
+     * @return receivers in loaded worlds per channel
+     */
+    public @NotNull HashMap<ChannelKey, HashSet<Location>> loadAll() {
+        HashMap<ChannelKey, HashSet<Location>> result = new HashMap<>();
+
+        for (Map.Entry<ChannelKey, LinkedHashSet<StoredReceiver>> entry : readAllReceivers().entrySet()) {
+            result.put(entry.getKey(), toLocations(entry.getValue()));
+        }
+
+        return result;
+    }
+
+    /**
+     * store a new receiver, nothing happens if it is already stored
+     * @param channelKey owner and channel the receiver belongs to
+     * @param location block location of the receiver sign
+     */
+    public void add(@NotNull ChannelKey channelKey, @NotNull Location location) {
+        addAll(channelKey, List.of(location));
+    }
+
+    /**
+     * store multiple receivers of a channel at once, receivers already stored get skipped
+     * @param channelKey owner and channel the receivers belong to
+     * @param locations block locations of the receiver signs
+     */
+    public void addAll(@NotNull ChannelKey channelKey, @NotNull Collection<Location> locations) {
+        if (fileChannel == null) {
+            GreenLogger.log(Level.SEVERE, "wireless store is not open, couldn't save " + locations.size() + " receivers of channel " + channelKey);
+            return;
+        }
+
+        try {
+            LinkedHashSet<StoredReceiver> receivers = readReceivers(channelKey);
+
+            for (Location location : locations) {
+                World world = location.getWorld();
+                StoredReceiver receiver = new StoredReceiver(getWorldIndex(world.getUID(), world.getName()),
+                        location.getBlockX(), location.getBlockY(), location.getBlockZ());
+
+                if (receivers.add(receiver)) {
+                    appendReceiver(TYPE_ADD, channelKey, receiver);
+                }
+            }
+        } catch (IOException e) {
+            GreenLogger.log(Level.SEVERE, "couldn't save receivers of channel " + channelKey + " to " + file.getPath(), e);
+        }
+    }
+
+    /**
+     * store receivers of worlds that are not loaded right now, so they work once the world loads.
+     * Receivers already stored get skipped
+     * @param channelKey owner and channel the receivers belong to
+     * @param receivers receivers of worlds that are not loaded
+     */
+    public void addUnloaded(@NotNull ChannelKey channelKey, @NotNull Collection<ReceiverCodec.UnloadedReceiver> receivers) {
+        if (fileChannel == null) {
+            GreenLogger.log(Level.SEVERE, "wireless store is not open, couldn't save " + receivers.size() + " receivers of channel " + channelKey + " in unloaded worlds");
+            return;
+        }
+
+        try {
+            LinkedHashSet<StoredReceiver> storedReceivers = readReceivers(channelKey);
+
+            for (ReceiverCodec.UnloadedReceiver receiver : receivers) {
+                StoredReceiver storedReceiver = new StoredReceiver(getWorldIndex(receiver.worldUUID(), receiver.worldName()),
+                        receiver.x(), receiver.y(), receiver.z());
+
+                if (storedReceivers.add(storedReceiver)) {
+                    appendReceiver(TYPE_ADD, channelKey, storedReceiver);
+                }
+            }
+        } catch (IOException e) {
+            GreenLogger.log(Level.SEVERE, "couldn't save receivers of channel " + channelKey + " in unloaded worlds to " + file.getPath(), e);
+        }
+    }
+
+    /**
+     * get every channel that has, or had, receivers in a world
+     * @param world a loaded world
+     * @return owner and channel of all channels with receivers in the world, might include channels whose receivers got all removed
+     */
+    public @NotNull HashSet<ChannelKey> getChannelsOf(@NotNull World world) {
+        HashSet<ChannelKey> channelKeys = new HashSet<>();
+
+        for (int i = 0; i < worldUUIDs.size(); i++) {
+            //the same way receivers get resolved, first by uuid, then by name
+            if (world.getUID().equals(worldUUIDs.get(i)) ||
+                    (world.getName().equals(worldNames.get(i)) && worldByUUID.apply(worldUUIDs.get(i)) == null)) {
+                channelKeys.addAll(worldChannels.get(i));
+            }
+        }
+
+        return channelKeys;
+    }
+
+    /**
+     * store that a receiver doesn't exist anymore, nothing happens if it isn't stored
+     * @param channelKey owner and channel the receiver belonged to
+     * @param location block location of the receiver sign
+     */
+    public void remove(@NotNull ChannelKey channelKey, @NotNull Location location) {
+        if (fileChannel == null) {
+            GreenLogger.log(Level.SEVERE, "wireless store is not open, couldn't remove receiver of channel " + channelKey + " at " + location);
+            return;
+        }
+
+        World world = location.getWorld();
+        Integer worldIndex = findWorldIndex(world.getUID(), world.getName());
+        if (worldIndex == null) {
+            //never stored a receiver in this world
+            return;
+        }
+
+        StoredReceiver receiver = new StoredReceiver(worldIndex, location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        try {
+            if (!readReceivers(channelKey).contains(receiver)) {
+                return;
+            }
+
+            appendReceiver(TYPE_REMOVE, channelKey, receiver);
+        } catch (IOException e) {
+            GreenLogger.log(Level.SEVERE, "couldn't remove receiver of channel " + channelKey + " at " + location + " from " + file.getPath(), e);
+            return;
+        }
+        garbageRecords += 2;
+    }
+
+    /**
+     * @return true if enough records are outdated, that the file should get {@link #compact() compacted}
+     */
+    public boolean needsCompaction() {
+        return garbageRecords >= MIN_GARBAGE_TO_COMPACT && garbageRecords >= receiverRecords * MIN_GARBAGE_RATIO_TO_COMPACT;
+    }
+
+    /**
+     * append a receiver record of a world already in the world table
+     * @param type add or remove
+     * @param channelKey owner and channel the receiver belongs to
+     * @param receiver the receiver like it is stored
+     * @throws IOException if writing fails
+     */
+    private void appendReceiver(byte type, @NotNull ChannelKey channelKey, @NotNull StoredReceiver receiver) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        writeChannelKey(out, channelKey);
+        writeReceiver(out, receiver);
+
+        long offset = writeRecord(bytes);
+        channelIndex.computeIfAbsent(channelKey, k -> new Offsets()).add(offset);
+        worldChannels.get(receiver.worldIndex()).add(channelKey);
+        receiverCounts.change(channelKey, type == TYPE_ADD ? 1 : -1);
+        receiverRecords++;
+    }
+
+    /**
+     * get the index of a world in the world table, the world gets added if it isn't already.
+     * A world unknown by its uuid reuses the entry of a world with the same name, that doesn't exist anymore
+     * (copied worlds or worlds only known by name), the same way receivers get resolved
+     * @param worldUUID uuid of the world, null if only its name is known
+     * @param worldName name of the world
+     * @return index of the world
+     * @throws IOException if the world record couldn't get written
+     */
+    private int getWorldIndex(@Nullable UUID worldUUID, @NotNull String worldName) throws IOException {
+        Integer worldIndex = findWorldIndex(worldUUID, worldName);
+        if (worldIndex != null) {
+            return worldIndex;
+        }
+
+        if (worldUUID == null) {
+            //never the uuid of a real world, the receivers will get resolved by the name
+            worldUUID = UUID.nameUUIDFromBytes(("world:" + worldName).getBytes(StandardCharsets.UTF_8));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(TYPE_WORLD);
+        out.writeLong(worldUUID.getMostSignificantBits());
+        out.writeLong(worldUUID.getLeastSignificantBits());
+        out.writeUTF(worldName);
+        writeRecord(bytes);
+
+        return addToWorldTable(worldUUID, worldName);
+    }
+
+    /**
+     * get the index of a world in the world table, without adding it.
+     * Resolves the same way as {@link #getWorldIndex(UUID, String)}
+     * @param worldUUID uuid of the world, null if only its name is known
+     * @param worldName name of the world
+     * @return index of the world, null if the world isn't in the world table
+     */
+    private @Nullable Integer findWorldIndex(@Nullable UUID worldUUID, @NotNull String worldName) {
+        Integer worldIndex = worldUUID == null ? null : worldIndices.get(worldUUID);
+        if (worldIndex != null) {
+            return worldIndex;
+        }
+
+        worldIndex = worldIndicesByName.get(worldName);
+        if (worldIndex != null && worldByUUID.apply(worldUUIDs.get(worldIndex)) == null) {
+            if (worldUUID != null) {
+                worldIndices.put(worldUUID, worldIndex);
+            }
+            return worldIndex;
+        }
+
+        return null;
+    }
+
+    /**
+     * rewrite the file with only the receivers still alive, including those of worlds that are currently not loaded.
+     * The new file gets written next to the old one and then moved in place, a crash in between leaves the old file intact.
+     */
+    public void compact() {
+        if (fileChannel == null) {
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        int oldRecords = receiverRecords;
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        try {
+            HashMap<ChannelKey, LinkedHashSet<StoredReceiver>> allReceivers = readAllReceivers();
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+
+                //the world table stays the same, so the receivers don't need to get translated
+                for (int i = 0; i < worldUUIDs.size(); i++) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    DataOutputStream recordOut = new DataOutputStream(bytes);
+                    recordOut.writeByte(TYPE_WORLD);
+                    recordOut.writeLong(worldUUIDs.get(i).getMostSignificantBits());
+                    recordOut.writeLong(worldUUIDs.get(i).getLeastSignificantBits());
+                    recordOut.writeUTF(worldNames.get(i));
+                    writeRecord(out, bytes);
+                }
+
+                for (Map.Entry<ChannelKey, LinkedHashSet<StoredReceiver>> entry : allReceivers.entrySet()) {
+                    for (StoredReceiver receiver : entry.getValue()) {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        DataOutputStream recordOut = new DataOutputStream(bytes);
+                        recordOut.writeByte(TYPE_ADD);
+                        writeChannelKey(recordOut, entry.getKey());
+                        writeReceiver(recordOut, receiver);
+                        writeRecord(out, bytes);
+                    }
+                }
+            }
+
+            //make sure the new file is complete before it replaces the old one
+            try (FileChannel tempChannel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+                tempChannel.force(true);
+            }
+
+            close();
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            GreenLogger.log(Level.SEVERE, "couldn't compact " + file.getPath() + ", keeping the old one.", e);
+        }
+
+        //(re)open and index whatever file is in place now
+        worldUUIDs.clear();
+        worldNames.clear();
+        worldIndices.clear();
+        worldIndicesByName.clear();
+        worldChannels.clear();
+        channelIndex.clear();
+        receiverRecords = 0;
+        garbageRecords = 0;
+
+        try {
+            if (fileChannel != null) {
+                close();
+            }
+            open();
+        } catch (IOException e) {
+            GreenLogger.log(Level.SEVERE, "couldn't reopen " + file.getPath() + " after compacting.", e);
+        }
+
+        GreenLogger.log(Level.INFO, String.format("Compacted wireless store from %d to %d receiver records in %d ms.",
+                oldRecords, receiverRecords, (System.nanoTime() - startTime) / 1_000_000));
+    }
+
+    /**
+     * read every receiver record from start to end
+     * @return all receivers still alive, including those of worlds that are currently not loaded
+     */
+    private @NotNull HashMap<ChannelKey, LinkedHashSet<StoredReceiver>> readAllReceivers() {
+        HashMap<ChannelKey, LinkedHashSet<StoredReceiver>> allReceivers = new HashMap<>();
+        if (fileChannel == null) {
+            return allReceivers;
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(fileChannel.position(HEADER_LENGTH))));
+            long offset = HEADER_LENGTH;
+
+            //everything up to the end offset was validated while indexing, except the broken parts
+            while (offset < endOffset) {
+                Long brokenEnd = brokenRanges.get(offset);
+                if (brokenEnd != null) {
+                    in.skipNBytes(brokenEnd - offset);
+                    offset = brokenEnd;
+                    continue;
+                }
+
+                int length = in.readInt();
+                in.readInt(); //checksum
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                offset += RECORD_HEADER_LENGTH + length;
+
+                DataInputStream payloadIn = new DataInputStream(new ByteArrayInputStream(payload));
+                byte type = payloadIn.readByte();
+                if (type != TYPE_WORLD) {
+                    ChannelKey channelKey = readChannelKey(payloadIn);
+                    StoredReceiver receiver = readReceiver(payloadIn);
+                    LinkedHashSet<StoredReceiver> receivers = allReceivers.computeIfAbsent(channelKey, k -> new LinkedHashSet<>());
+
+                    if (type == TYPE_ADD) {
+                        receivers.add(receiver);
+                    } else {
+                        receivers.remove(receiver);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            GreenLogger.log(Level.SEVERE, "couldn't read " + file.getPath(), e);
+        }
+
+        return allReceivers;
+    }
+
+    /**
+     * read the payload of a single record
+     * @param offset offset of the record in the file
+     * @return input of the payload
+     * @throws IOException if reading fails
+     */
+    private @NotNull DataInputStream readRecord(long offset) throws IOException {
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        readFully(recordHeader, offset);
+        int length = recordHeader.getInt(0);
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(payload, offset + RECORD_HEADER_LENGTH);
+
+        return new DataInputStream(new ByteArrayInputStream(payload.array()));
+    }
+
+    /**
+     * fill a buffer from the file, starting at the given position
+     */
+    private void readFully(@NotNull ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    /**
+     * append a record at the end of the file
+     * @param payload the payload of the record
+     * @return offset of the new record
+     * @throws IOException if writing fails
+     */
+    private long writeRecord(@NotNull ByteArrayOutputStream payload) throws IOException {
+        byte[] payloadBytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payloadBytes);
+
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_LENGTH + payloadBytes.length);
+        buffer.putInt(payloadBytes.length).putInt((int) crc.getValue()).put(payloadBytes).flip();
+
+        long offset = endOffset;
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer, offset + buffer.position());
+        }
+        endOffset += buffer.limit();
+
+        return offset;
+    }
+
+    /**
+     * write a record to a stream
+     * @param out stream to write to
+     * @param payload the payload of the record
+     * @throws IOException if writing fails
+     */
+    private static void writeRecord(@NotNull DataOutputStream out, @NotNull ByteArrayOutputStream payload) throws IOException {
+        byte[] payloadBytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payloadBytes);
+
+        out.writeInt(payloadBytes.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payloadBytes);
+    }
+
+    /**
+     * add a world to the world table
+     * @return index of the world
+     */
+    private int addToWorldTable(@NotNull UUID worldUUID, @NotNull String worldName) {
+        worldUUIDs.add(worldUUID);
+        worldNames.add(worldName);
+        worldIndices.put(worldUUID, worldUUIDs.size() - 1);
+        worldIndicesByName.put(worldName, worldUUIDs.size() - 1);
+        worldChannels.add(new HashSet<>());
+
+        return worldUUIDs.size() - 1;
+    }
+
+    /**
+     * translate stored receivers to locations. Receivers of worlds that are not loaded get skipped
+     */
+    private @NotNull HashSet<Location> toLocations(@NotNull Collection<StoredReceiver> receivers) {
+        //resolve every world once
+        World[] worlds = new World[worldUUIDs.size()];
+        for (int i = 0; i < worlds.length; i++) {
+            worlds[i] = worldByUUID.apply(worldUUIDs.get(i));
+
+            if (worlds[i] == null) {
+                worlds[i] = worldByName.apply(worldNames.get(i));
+            }
+        }
+
+        HashSet<Location> locations = new HashSet<>(receivers.size());
+        for (StoredReceiver receiver : receivers) {
+            World world = worlds[receiver.worldIndex()];
+
+            if (world != null) {
+                locations.add(new Location(world, receiver.x(), receiver.y(), receiver.z()));
+            }
+        }
+
+        return locations;
+    }
+
+    private static void writeChannelKey(@NotNull DataOutputStream out, @NotNull ChannelKey channelKey) throws IOException {
+        UUID owner = channelKey.getOwner();
+
+        if (owner == null) {
+            out.writeByte(0);
+        } else {
+            out.writeByte(1);
+            out.writeLong(owner.getMostSignificantBits());
+            out.writeLong(owner.getLeastSignificantBits());
+        }
+
+        out.writeUTF(channelKey.getChannel());
+    }
+
+    private static @NotNull ChannelKey readChannelKey(@NotNull DataInputStream in) throws IOException {
+        UUID owner = in.readByte() == 0 ? null : new UUID(in.readLong(), in.readLong());
+
+        return ChannelKey.of(owner, in.readUTF());
+    }
+
+    private static void writeReceiver(@NotNull DataOutputStream out, @NotNull StoredReceiver receiver) throws IOException {
+        ReceiverCodec.writeVarInt(out, receiver.worldIndex());
+        ReceiverCodec.writeVarInt(out, ReceiverCodec.zigzag(receiver.x()));
+        ReceiverCodec.writeVarInt(out, ReceiverCodec.zigzag(receiver.y()));
+        ReceiverCodec.writeVarInt(out, ReceiverCodec.zigzag(receiver.z()));
+    }
+
+    private static @NotNull StoredReceiver readReceiver(@NotNull DataInputStream in) throws IOException {
+        return new StoredReceiver(ReceiverCodec.readVarInt(in),
+                ReceiverCodec.unZigzag(ReceiverCodec.readVarInt(in)),
+                ReceiverCodec.unZigzag(ReceiverCodec.readVarInt(in)),
+                ReceiverCodec.unZigzag(ReceiverCodec.readVarInt(in)));
+    }
+}
@@ -1,13 +1,37 @@
 package de.greensurvivors.greenbook.config;
 
 import de.greensurvivors.greenbook.GreenBook;
+import de.greensurvivors.greenbook.GreenLogger;
 import de.greensurvivors.greenbook.listener.WirelessListener;
+import de.greensurvivors.greenbook.wireless.ChannelKey;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 //todo make it easier to switch between player specific channels and not
 public class WireLessConfig {
@@ -19,7 +43,32 @@ public class WireLessConfig {
             //this means, a transmitter placed by a player only activates receivers placed by the same player.
             USE_PLAYER_SPECIFIC_CHANNELS = WIRELESS_KEY + "usePlayerSpecificChannels",
             // config key if we try to load old craftbook signs or if the channel files ever get lost
-            COMPATIBILITY_MODE = WIRELESS_KEY + "compatibilityMode";
+            COMPATIBILITY_MODE = WIRELESS_KEY + "compatibilityMode",
+            // config key if all channel files should get loaded on enable, instead of the first time they are needed
+            WARM_UP_CHANNELS = WIRELESS_KEY + "warmUpChannels",
+            // config key if the time spent on every channel should get tracked, to find out whose channels cost the most
+            TRACK_COSTS = WIRELESS_KEY + "trackCosts",
+            // config keys how often a channel may send signals, and all channels of one owner together. 0 means unlimited
+            MAX_CHANNEL_SIGNALS_PER_SECOND = WIRELESS_KEY + "maxChannelSignalsPerSecond",
+            MAX_OWNER_SIGNALS_PER_TICK = WIRELESS_KEY + "maxOwnerSignalsPerTick",
+            MAX_OWNER_SIGNALS_PER_SECOND = WIRELESS_KEY + "maxOwnerSignalsPerSecond",
+            // config key how many ticks a channel has to keep its state before it gets sent. 0 sends every change
+            DEBOUNCE_TICKS = WIRELESS_KEY + "debounceTicks",
+            // config key how many wireless channels in a row may trigger each other, before the chain gets cut off
+            MAX_PROPAGATION_DEPTH = WIRELESS_KEY + "maxPropagationDepth",
+            // config key how many milliseconds per tick may be spent on scanning chunks for receiver signs
+            SCAN_MILLIS_PER_TICK = WIRELESS_KEY + "scanMillisPerTick",
+            // config key how many threads read region files, while scanning them for receiver signs
+            REGION_SCAN_THREADS = WIRELESS_KEY + "regionScanThreads",
+            // config keys how many channels and receivers may stay cached, least recently used channels get evicted. 0 means unlimited
+            MAX_CACHED_CHANNELS = WIRELESS_KEY + "maxCachedChannels",
+            MAX_CACHED_RECEIVERS = WIRELESS_KEY + "maxCachedReceivers",
+            // config key how many ticks a used channel stays pinned in the cache, even above its limits. 0 pins none
+            PIN_CACHED_CHANNEL_TICKS = WIRELESS_KEY + "pinCachedChannelTicks",
+            // config keys how many receivers a channel may have, and how many receivers and channels one owner may have. 0 means unlimited
+            MAX_RECEIVERS_PER_CHANNEL = WIRELESS_KEY + "maxReceiversPerChannel",
+            MAX_RECEIVERS_PER_OWNER = WIRELESS_KEY + "maxReceiversPerOwner",
+            MAX_CHANNELS_PER_OWNER = WIRELESS_KEY + "maxChannelsPerOwner";
 
     //this pattern contains all chars that are not allowed in a filename
     private final Pattern FILENAME_LIMITATIONS = Pattern.compile("[-\"*/:<>?|+,.;=\\[\\]\\\\ ]");
@@ -29,17 +78,119 @@ public class WireLessConfig {
     //default values, in case no or faulty values are in config
     private static final boolean
             DEFAULT_USE_PLAYER_SPECIFIC_CHANNELS = true,
-            DEFAULT_COMPATIBILITY_MODE = false;
+            DEFAULT_COMPATIBILITY_MODE = false,
+            DEFAULT_WARM_UP_CHANNELS = false,
+            DEFAULT_TRACK_COSTS = false;
+    private static final int
+            //throttling is opt in, existing clocks would get slowed down otherwise
+            DEFAULT_MAX_CHANNEL_SIGNALS_PER_SECOND = 0,
+            DEFAULT_MAX_OWNER_SIGNALS_PER_TICK = 0,
+            DEFAULT_MAX_OWNER_SIGNALS_PER_SECOND = 0,
+            DEFAULT_DEBOUNCE_TICKS = 0,
+            DEFAULT_MAX_PROPAGATION_DEPTH = 8,
+            DEFAULT_SCAN_MILLIS_PER_TICK = 2,
+            //more threads would take the disk away from the server
+            DEFAULT_REGION_SCAN_THREADS = 2,
+            DEFAULT_MAX_CACHED_CHANNELS = 10000,
+            DEFAULT_MAX_CACHED_RECEIVERS = 200000,
+            //channels used within the last 10 seconds stay, they will probably be used again soon
+            DEFAULT_PIN_CACHED_CHANNEL_TICKS = 200,
+            //quotas are opt in, servers already above them couldn't place any receivers otherwise
+            DEFAULT_MAX_RECEIVERS_PER_CHANNEL = 0,
+            DEFAULT_MAX_RECEIVERS_PER_OWNER = 0,
+            DEFAULT_MAX_CHANNELS_PER_OWNER = 0;
+    //maximum number of threads parsing channel files while warming up
+    private static final int MAX_WARM_UP_THREADS = 4;
+    //the store gets compacted at most once in this time, so removing many receivers doesn't rewrite it over and over
+    private static final long MIN_MILLIS_BETWEEN_COMPACTIONS = TimeUnit.MINUTES.toMillis(5);
+
+    //name of the file all receivers are stored in
+    private static final String STORE_FILE_NAME = "receivers.store";
+    //file the last state of every channel gets saved in
+    private static final String CHANNEL_STATES_FILE_NAME = "channel_states.bin";
+
+    //the loaded worlds, taken on the main thread. Asking the server for a world is only safe on the main thread,
+    //so the io thread and the warm up resolve worlds only through this
+    private volatile @NotNull LoadedWorlds loadedWorlds = new LoadedWorlds(Map.of(), Map.of());
+    //all receivers of all channels. Only ever used by the io thread
+    private final ReceiverStore store = new ReceiverStore(new File(GreenBook.inst().getDataFolder(), STORE_FILE_NAME),
+            worldUUID -> loadedWorlds.byUUID().get(worldUUID), this::getLoadedWorld);
+    //the last state of every channel, only used by the io thread once loaded
+    private final ChannelStateFile channelStateFile = new ChannelStateFile(new File(GreenBook.inst().getDataFolder(), CHANNEL_STATES_FILE_NAME));
+    //reads and writes the store in the background, so the main thread never waits for the disk
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "GreenBook-Wireless-IO");
+        thread.setDaemon(true);
+        return thread;
+    });
+    //true, if a sync of the store is already queued. Only ever used by the io thread
+    private boolean syncQueued = false;
+    //true, if compacting the store is already queued and when it was compacted the last time. Only ever used by the io thread
+    private boolean compactionQueued = false;
+    private long lastCompactionMillis = 0;
+
+    //receivers of all channels of the store, loaded while warming up.
+    //a channel gets removed from here once it was handed over to the wireless cache
+    private final ConcurrentHashMap<ChannelKey, HashSet<Location>> warmedUpStoreChannels = new ConcurrentHashMap<>();
+    //all channels of the store, only complete after warming up
+    private final Set<ChannelKey> knownStoreChannels = ConcurrentHashMap.newKeySet();
+    //channel files of older versions found while warming up, by their path relative to the data folder.
+    //a channel gets removed from here once it was handed over to the wireless cache
+    private final ConcurrentHashMap<String, ChannelConfig> warmedUpChannelFiles = new ConcurrentHashMap<>();
+    //paths of all channel files of older versions that exist, only complete after warming up
+    private final Set<String> knownChannelFiles = ConcurrentHashMap.newKeySet();
+    //true, if every channel was read on enable, so a channel that wasn't found doesn't need to get looked up
+    private volatile boolean warmedUp = false;
+    //true, once the warm up was started. It only runs on enable, never on a reload. Only ever used by the main thread
+    private boolean warmUpStarted = false;
+    //true, once a reload dropped the warm up, so a warm up still running must not hand out its channels anymore
+    private boolean warmUpForgotten = false;
+    //true, while the warm up is running and channels that changed in the meantime. Only ever used by the io thread
+    private boolean warmingUp = false;
+    private final HashSet<ChannelKey> changedWhileWarmingUp = new HashSet<>();
 
     //this class keeps track of its own instance, so it's basically static
     private static WireLessConfig instance;
 
+    /**
+     * everything read by the warm up, before it is handed out
+     * @param storeChannels receivers of all channels of the store
+     * @param channelPaths paths of all channel files of older versions
+     * @param channelFiles parsed channel files of older versions by their path
+     */
+    private record WarmUp(@NotNull HashMap<ChannelKey, HashSet<Location>> storeChannels, @NotNull List<String> channelPaths,
+                          @NotNull ConcurrentHashMap<String, ChannelConfig> channelFiles) {
+    }
+
+    /**
+     * the worlds that where loaded, when the main thread took this snapshot
+     * @param byUUID loaded worlds by their uuid
+     * @param byName loaded worlds by their lower case name
+     */
+    private record LoadedWorlds(@NotNull Map<UUID, World> byUUID, @NotNull Map<String, World> byName) {
+    }
+
     /**
      * load config the fist time and initialise with default values
      */
     private WireLessConfig() {
         GreenBook.inst().getConfig().addDefault(USE_PLAYER_SPECIFIC_CHANNELS, DEFAULT_USE_PLAYER_SPECIFIC_CHANNELS);
         GreenBook.inst().getConfig().addDefault(COMPATIBILITY_MODE, DEFAULT_COMPATIBILITY_MODE);
+        GreenBook.inst().getConfig().addDefault(WARM_UP_CHANNELS, DEFAULT_WARM_UP_CHANNELS);
+        GreenBook.inst().getConfig().addDefault(TRACK_COSTS, DEFAULT_TRACK_COSTS);
+        GreenBook.inst().getConfig().addDefault(MAX_CHANNEL_SIGNALS_PER_SECOND, DEFAULT_MAX_CHANNEL_SIGNALS_PER_SECOND);
+        GreenBook.inst().getConfig().addDefault(MAX_OWNER_SIGNALS_PER_TICK, DEFAULT_MAX_OWNER_SIGNALS_PER_TICK);
+        GreenBook.inst().getConfig().addDefault(MAX_OWNER_SIGNALS_PER_SECOND, DEFAULT_MAX_OWNER_SIGNALS_PER_SECOND);
+        GreenBook.inst().getConfig().addDefault(DEBOUNCE_TICKS, DEFAULT_DEBOUNCE_TICKS);
+        GreenBook.inst().getConfig().addDefault(MAX_PROPAGATION_DEPTH, DEFAULT_MAX_PROPAGATION_DEPTH);
+        GreenBook.inst().getConfig().addDefault(SCAN_MILLIS_PER_TICK, DEFAULT_SCAN_MILLIS_PER_TICK);
+        GreenBook.inst().getConfig().addDefault(REGION_SCAN_THREADS, DEFAULT_REGION_SCAN_THREADS);
+        GreenBook.inst().getConfig().addDefault(MAX_CACHED_CHANNELS, DEFAULT_MAX_CACHED_CHANNELS);
+        GreenBook.inst().getConfig().addDefault(MAX_CACHED_RECEIVERS, DEFAULT_MAX_CACHED_RECEIVERS);
+        GreenBook.inst().getConfig().addDefault(PIN_CACHED_CHANNEL_TICKS, DEFAULT_PIN_CACHED_CHANNEL_TICKS);
+        GreenBook.inst().getConfig().addDefault(MAX_RECEIVERS_PER_CHANNEL, DEFAULT_MAX_RECEIVERS_PER_CHANNEL);
+        GreenBook.inst().getConfig().addDefault(MAX_RECEIVERS_PER_OWNER, DEFAULT_MAX_RECEIVERS_PER_OWNER);
+        GreenBook.inst().getConfig().addDefault(MAX_CHANNELS_PER_OWNER, DEFAULT_MAX_CHANNELS_PER_OWNER);
     }
 
     /**
@@ -54,49 +205,664 @@ public class WireLessConfig {
     }
 
     /**
-     *
+     * take a new snapshot of the loaded worlds. Call only from the main thread, whenever a world loads or unloads
+     * @param unloadingWorld a world that is still loaded, but won't be once its unload event is done. Null if there is none
+     */
+    public void updateLoadedWorlds(@Nullable World unloadingWorld) {
+        HashMap<UUID, World> byUUID = new HashMap<>();
+        HashMap<String, World> byName = new HashMap<>();
+
+        for (World world : Bukkit.getWorlds()) {
+            if (world != unloadingWorld) {
+                byUUID.put(world.getUID(), world);
+                //the server ignores the case of world names as well
+                byName.put(world.getName().toLowerCase(Locale.ROOT), world);
+            }
+        }
+
+        loadedWorlds = new LoadedWorlds(Map.copyOf(byUUID), Map.copyOf(byName));
+    }
+
+    /**
+     * get a loaded world by its name, from the last snapshot. Safe to call from every thread
+     * @param worldName name of the world
+     * @return the world, null if it wasn't loaded
+     */
+    private @Nullable World getLoadedWorld(@NotNull String worldName) {
+        return loadedWorlds.byName().get(worldName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * translate a channel into a string that is safe to use as a filename
      * @param channelStr channel, stripped of all color / formatting
-     * <br> a channel connects a transmitter with a receiver with the same channel
-     * @param playerUUIDStr UUID of the player owning this channel. If null global owns it.
-     * @return the set of saved receiver locations or null if no receiver for this channel uuid combination was ever saved
+     * @return channel without forbidden chars, never empty
      */
-    public @Nullable HashSet<Location> loadReceiverLocations(@NotNull String channelStr, @Nullable String playerUUIDStr) {
+    private @NotNull String toFileName(@NotNull String channelStr) {
         //don't allow forbidden chars or empty filenames
         if (channelStr.equals("")) {
-            channelStr = FILENAME_REPLACEMENT_STR;
+            return FILENAME_REPLACEMENT_STR;
         } else {
-            channelStr = FILENAME_LIMITATIONS.matcher(channelStr).replaceAll(FILENAME_REPLACEMENT_STR);
+            return FILENAME_LIMITATIONS.matcher(channelStr).replaceAll(FILENAME_REPLACEMENT_STR);
+        }
+    }
+
+    /**
+     * get the config file of a channel
+     * @param channelKey owner and channel, stripped of all color / formatting
+     * @return new config for this owner, channel combination
+     */
+    private @NotNull ChannelConfig getChannelConfig(@NotNull ChannelKey channelKey) {
+        UUID owner = channelKey.getOwner();
+        return new ChannelConfig(toFileName(channelKey.getChannel()), owner == null ? null : owner.toString(), this::getLoadedWorld);
+    }
+
+    /**
+     * run a task on the io thread. Once the io thread was stopped the store is closed, so the task gets dropped.
+     * @param task task that uses the store
+     */
+    private void runOnIoThread(@NotNull Runnable task) {
+        try {
+            ioExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            GreenLogger.log(Level.WARNING, "wireless store was already closed, dropping a change to it.", e);
         }
+    }
 
-        ChannelConfig config = new ChannelConfig(channelStr, playerUUIDStr);
+    /**
+     * make sure the store gets synced to disk, after every change queued until now was written.
+     * Multiple changes in a row share a single sync. Call only from the io thread
+     */
+    private void queueSync() {
+        if (!syncQueued) {
+            syncQueued = true;
 
-        return config.getSet();
+            runOnIoThread(() -> {
+                syncQueued = false;
+                store.sync();
+            });
+        }
     }
 
     /**
-     * save the used receiver locations to file
-     * @param channelStr
-     * @param locations
-     * @param playerUUID
+     * compact the store in its own task, once enough records are outdated.
+     * Waits at least {@link #MIN_MILLIS_BETWEEN_COMPACTIONS} after the last compaction, the next change checks again. Call only from the io thread
      */
-    public void saveReceiverLocations(@NotNull String channelStr, @NotNull HashSet<Location> locations, @Nullable String playerUUID) {
-        //don't allow forbidden chars or empty filenames
-        if (channelStr.equals("")) {
-            channelStr = FILENAME_REPLACEMENT_STR;
+    private void queueCompaction() {
+        if (!compactionQueued && store.needsCompaction() && System.currentTimeMillis() - lastCompactionMillis >= MIN_MILLIS_BETWEEN_COMPACTIONS) {
+            compactionQueued = true;
+
+            runOnIoThread(() -> {
+                compactionQueued = false;
+                lastCompactionMillis = System.currentTimeMillis();
+                store.compact();
+            });
+        }
+    }
+
+    /**
+     * open the store, if it isn't already. Call only from the io thread
+     */
+    private void openStore() {
+        if (!store.isOpen()) {
+            try {
+                store.open();
+            } catch (IOException e) {
+                GreenLogger.log(Level.SEVERE, "couldn't open wireless store, receivers will not get saved!", e);
+            }
+        }
+    }
+
+    /**
+     * the receivers of a channel changed or got loaded from storage, so a warmed up copy of it is outdated.
+     * Call only from the io thread
+     * @param channelKey owner and channel
+     */
+    private void markChanged(@NotNull ChannelKey channelKey) {
+        if (warmingUp) {
+            changedWhileWarmingUp.add(channelKey);
+        }
+        warmedUpStoreChannels.remove(channelKey);
+    }
+
+    /**
+     * move a channel of an older version into the store, including its receivers in worlds that are not loaded right now.
+     * Its files get deleted afterwards, but only once the store is synced to disk. Call only from the io thread
+     * @param channelKey owner and channel the receivers belong to
+     * @param channelConfig file of the channel
+     * @param locations all receivers of this channel in loaded worlds
+     */
+    private void migrateChannel(@NotNull ChannelKey channelKey, @NotNull ChannelConfig channelConfig, @NotNull Collection<Location> locations) {
+        markChanged(channelKey);
+        store.addAll(channelKey, locations);
+
+        List<ReceiverCodec.UnloadedReceiver> unloadedReceivers = channelConfig.getUnloadedReceivers();
+        if (!unloadedReceivers.isEmpty()) {
+            store.addUnloaded(channelKey, unloadedReceivers);
+            GreenLogger.log(Level.INFO, "kept " + unloadedReceivers.size() + " receivers of wireless channel " + channelKey +
+                    " in worlds that are not loaded, they will work once their world loads.");
+        }
+
+        //a crash before the next sync would lose the receivers, if the old files were already gone
+        if (store.sync()) {
+            channelConfig.delete();
+        } else {
+            GreenLogger.log(Level.WARNING, "couldn't sync wireless store, keeping the old files of channel " + channelKey + ".");
+        }
+    }
+
+    /**
+     * load the receivers of a channel from the store. Channels of older versions get moved into the store.
+     * Call only from the io thread
+     * @param channelKey owner and channel, stripped of all color / formatting
+     * <br> a channel connects a transmitter with a receiver with the same channel
+     * @return the set of saved receiver locations or null if no receiver for this channel uuid combination was ever saved
+     */
+    private @Nullable HashSet<Location> loadReceiverLocations(@NotNull ChannelKey channelKey) {
+        //the cache gets this copy, a warmed up one must never get handed out as well
+        markChanged(channelKey);
+
+        if (store.contains(channelKey)) {
+            return store.load(channelKey);
+        }
+
+        ChannelConfig channelConfig = getChannelConfig(channelKey);
+        HashSet<Location> locations = channelConfig.getSet();
+        if (locations != null) {
+            migrateChannel(channelKey, channelConfig, locations);
+        }
+
+        return locations;
+    }
+
+    /**
+     * get the receivers of a channel that where loaded while warming up, without waiting for the disk
+     * @param channelKey owner and channel, stripped of all color / formatting
+     * @return the set of receivers, an empty set if this channel wasn't ever saved
+     * or null, if the channel wasn't warmed up and has to get loaded the normal way
+     */
+    public @Nullable HashSet<Location> getWarmedUpReceiverLocations(@NotNull ChannelKey channelKey) {
+        if (!warmedUp) {
+            return null;
+        }
+
+        HashSet<Location> locations = warmedUpStoreChannels.remove(channelKey);
+        if (locations != null) {
+            return locations;
+        } else if (knownStoreChannels.contains(channelKey)) {
+            //was already handed out
+            return null;
+        }
+
+        String path = getChannelConfig(channelKey).getPath();
+        ChannelConfig channelConfig = warmedUpChannelFiles.remove(path);
+        if (channelConfig != null) {
+            locations = channelConfig.getSet();
+
+            if (locations != null) {
+                //the returned set will get modified on the main thread, so the migration needs a copy
+                List<Location> snapshot = List.copyOf(locations);
+                knownStoreChannels.add(channelKey);
+                runOnIoThread(() -> migrateChannel(channelKey, channelConfig, snapshot));
+
+                return locations;
+            }
+        }
+
+        if (knownChannelFiles.contains(path)) {
+            //was already handed out, or couldn't get parsed
+            return null;
         } else {
-            channelStr = FILENAME_LIMITATIONS.matcher(channelStr).replaceAll(FILENAME_REPLACEMENT_STR);
+            return new HashSet<>();
+        }
+    }
+
+    /**
+     * make sure channels get loaded from storage the next time they are needed, never from the warm up.
+     * Channels that got evicted from or invalidated in the receiver cache might have receivers the warm up doesn't know about,
+     * so they must not get mistaken for channels without receivers.
+     * @param channelKeys owner and channel of every channel, that has to get loaded from storage
+     */
+    public void forceStoreRead(@NotNull Collection<ChannelKey> channelKeys) {
+        for (ChannelKey channelKey : channelKeys) {
+            warmedUpStoreChannels.remove(channelKey);
+            knownStoreChannels.add(channelKey);
+        }
+    }
+
+    /**
+     * load the receivers of a channel in the background, so the main thread doesn't have to wait for the disk.
+     * Since reading and writing share the same thread, a load always sees every change that was requested before it.
+     * @param channelKey owner and channel, stripped of all color / formatting
+     * @return future of the set of saved receiver locations or null if no receiver for this channel uuid combination was ever saved.
+     * Will complete on the io thread. Completes exceptionally, if the store was already closed.
+     */
+    public @NotNull CompletableFuture<HashSet<Location>> loadReceiverLocationsAsync(@NotNull ChannelKey channelKey) {
+        try {
+            return CompletableFuture.supplyAsync(() -> loadReceiverLocations(channelKey), ioExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * get the number of saved receivers per channel and owner. They are up to date with everything the io thread saved,
+     * receivers still queued to get saved are included as reserved. Channels are only known once the store was opened
+     * @return number of receivers per channel and owner
+     */
+    public @NotNull ReceiverCounts getReceiverCounts() {
+        return store.getReceiverCounts();
+    }
+
+    /**
+     * forget the warmed up receivers of channels with receivers in a world, that unloads.
+     * These channels get loaded from storage instead, the next time they are needed. Call only from the main thread
+     * @param world world that unloads
+     */
+    public void forgetWorld(@NotNull World world) {
+        warmedUpStoreChannels.values().removeIf(locations -> containsWorld(locations, world));
+        warmedUpChannelFiles.values().removeIf(channelConfig -> containsWorld(channelConfig.getSet(), world));
+    }
+
+    /**
+     * @return true, if one of the locations is in the world
+     */
+    private static boolean containsWorld(@Nullable Collection<Location> locations, @NotNull World world) {
+        if (locations != null) {
+            for (Location location : locations) {
+                if (location.getWorld() == world) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * get every channel with receivers in a world that just loaded. Their receivers in this world where unknown,
+     * as long as it wasn't loaded, so cached copies of these channels are outdated.
+     * Warmed up channels, that missed the receivers of this world, get loaded from storage instead the next time they are needed.
+     * @param world world that just loaded
+     * @return future of owner and channel of all channels with receivers in the world. Will complete on the io thread.
+     */
+    public @NotNull CompletableFuture<Set<ChannelKey>> getChannelsOfWorldAsync(@NotNull World world) {
+        CompletableFuture<Set<ChannelKey>> future = new CompletableFuture<>();
+
+        runOnIoThread(() -> {
+            try {
+                Set<ChannelKey> channelKeys = store.getChannelsOf(world);
+
+                for (ChannelKey channelKey : channelKeys) {
+                    markChanged(channelKey);
+                }
+                //they get read again, this time with the world loaded
+                warmedUpChannelFiles.values().removeIf(channelConfig -> !channelConfig.getUnloadedReceivers().isEmpty());
+
+                future.complete(channelKeys);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * save a new receiver. It gets appended to the store asynchronously. Call only from the main thread
+     * @param channelKey owner and channel the receiver belongs to
+     * @param location block location of the receiver sign
+     */
+    public void addReceiverLocation(@NotNull ChannelKey channelKey, @NotNull Location location) {
+        final Location blockLocation = location.toBlockLocation();
+        //the channel is in the store from now on, it must not get mistaken for one without receivers
+        knownStoreChannels.add(channelKey);
+        //quotas have to see the receiver right away, not only once it got saved
+        store.getReceiverCounts().reserve(channelKey, 1);
+
+        runOnIoThread(() -> {
+            markChanged(channelKey);
+            store.add(channelKey, blockLocation);
+            store.getReceiverCounts().release(channelKey, 1);
+            queueSync();
+        });
+    }
+
+    /**
+     * save new receivers of one channel at once. They get appended to the store asynchronously. Call only from the main thread
+     * @param channelKey owner and channel the receivers belong to
+     * @param locations block locations of the receiver signs
+     */
+    public void addReceiverLocations(@NotNull ChannelKey channelKey, @NotNull Collection<Location> locations) {
+        final List<Location> blockLocations = new ArrayList<>(locations.size());
+        for (Location location : locations) {
+            blockLocations.add(location.toBlockLocation());
+        }
+        //the channel is in the store from now on, it must not get mistaken for one without receivers
+        knownStoreChannels.add(channelKey);
+        //quotas have to see the receivers right away, not only once they got saved
+        store.getReceiverCounts().reserve(channelKey, blockLocations.size());
+
+        runOnIoThread(() -> {
+            markChanged(channelKey);
+            store.addAll(channelKey, blockLocations);
+            store.getReceiverCounts().release(channelKey, blockLocations.size());
+            queueSync();
+        });
+    }
+
+    /**
+     * save every receiver that isn't already known, for multiple channels at once.
+     * Channels that where warmed up get loaded from the store instead, so they include the new receivers.
+     * @param receivers receivers per owner and channel, might include known ones
+     * @return future of the number of new receivers. Will complete on the io thread.
+     */
+    public @NotNull CompletableFuture<Integer> mergeReceiverLocations(@NotNull Map<ChannelKey, List<Location>> receivers) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        runOnIoThread(() -> {
+            int newReceivers = 0;
+
+            try {
+                for (Map.Entry<ChannelKey, List<Location>> entry : receivers.entrySet()) {
+                    ChannelKey channelKey = entry.getKey();
+
+                    //the warmed up copy would miss the new receivers
+                    markChanged(channelKey);
+                    knownStoreChannels.add(channelKey);
+                    String path = getChannelConfig(channelKey).getPath();
+                    warmedUpChannelFiles.remove(path);
+                    knownChannelFiles.add(path);
+
+                    HashSet<Location> knownLocations = loadReceiverLocations(channelKey);
+                    List<Location> newLocations = new ArrayList<>();
+                    for (Location location : entry.getValue()) {
+                        Location blockLocation = location.toBlockLocation();
+
+                        if (knownLocations == null || !knownLocations.contains(blockLocation)) {
+                            newLocations.add(blockLocation);
+                        }
+                    }
+
+                    if (!newLocations.isEmpty()) {
+                        store.addAll(channelKey, newLocations);
+                        newReceivers += newLocations.size();
+                    }
+                }
+
+                queueSync();
+                future.complete(newReceivers);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * save that a receiver doesn't exist anymore. It gets appended to the store asynchronously.
+     * @param channelKey owner and channel the receiver belonged to
+     * @param location block location of the receiver sign
+     */
+    public void removeReceiverLocation(@NotNull ChannelKey channelKey, @NotNull Location location) {
+        final Location blockLocation = location.toBlockLocation();
+
+        runOnIoThread(() -> {
+            markChanged(channelKey);
+            store.remove(channelKey, blockLocation);
+            queueSync();
+            queueCompaction();
+        });
+    }
+
+    /**
+     * save the last state of every wireless channel asynchronously, so the next start knows them
+     */
+    public void saveChannelStates() {
+        final HashMap<ChannelKey, Integer> channelStates = WirelessListener.inst().getChannelStates();
+
+        runOnIoThread(() -> channelStateFile.write(channelStates));
+    }
+
+    /**
+     * write everything that is still queued and stop the background writer.
+     * Blocks until everything was written, call this only on disable.
+     * @param channelStates the last state of every wireless channel, taken before the listener got cleared
+     */
+    public void flush(@NotNull Map<ChannelKey, Integer> channelStates) {
+        //copied, so nothing can change the states while the io thread writes them
+        final HashMap<ChannelKey, Integer> finalChannelStates = new HashMap<>(channelStates);
+        runOnIoThread(() -> channelStateFile.write(finalChannelStates));
+        ioExecutor.shutdown();
+
+        try {
+            //the io thread might still be writing, closing the store underneath it would break the write
+            if (!ioExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                GreenLogger.log(Level.WARNING, "saving wireless receivers took too long, the newest changes might get lost.");
+                return;
+            }
+        } catch (InterruptedException e) {
+            GreenLogger.log(Level.WARNING, "interrupted while saving wireless receivers, the newest changes might get lost.", e);
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        //every write is done, a record that was cut short anyway gets dropped the next time the store is opened
+        store.sync();
+        store.close();
+    }
+
+    /**
+     * read every channel of the store and parse every channel file of older versions in parallel
+     * and keep the result, until the channels get used.
+     * Runs in the background, until it is done every channel gets loaded the normal way.
+     * Channels that change or get loaded in the meantime are left out, since the warm up read them too early.
+     */
+    private void warmUpChannels() {
+        final long startTime = System.nanoTime();
+        final File dataFolder = GreenBook.inst().getDataFolder();
+
+        ExecutorService warmUpExecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_WARM_UP_THREADS)), runnable -> {
+            Thread thread = new Thread(runnable, "GreenBook-Wireless-WarmUp");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        CompletableFuture<WarmUp> readFuture;
+        try {
+            //the store is read on the io thread, after everything already queued
+            readFuture = CompletableFuture.supplyAsync(() -> {
+                warmingUp = true;
+                changedWhileWarmingUp.clear();
+
+                return new WarmUp(store.loadAll(), listChannelFiles(dataFolder), new ConcurrentHashMap<>());
+            }, ioExecutor);
+        } catch (RejectedExecutionException e) {
+            GreenLogger.log(Level.WARNING, "couldn't warm up wireless store, skipping warm up.", e);
+            warmUpExecutor.shutdown();
+            return;
+        }
+
+        readFuture.thenCompose(warmUp -> {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[warmUp.channelPaths().size()];
+
+            for (int i = 0; i < futures.length; i++) {
+                final String path = warmUp.channelPaths().get(i);
+
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    ChannelConfig channelConfig = ChannelConfig.fromPath(path, this::getLoadedWorld);
+                    if (channelConfig.getSet() != null) {
+                        warmUp.channelFiles().put(path, channelConfig);
+                    }
+                }, warmUpExecutor);
+            }
+
+            return CompletableFuture.allOf(futures).handle((ignored, throwable) -> {
+                if (throwable != null) {
+                    GreenLogger.log(Level.WARNING, "couldn't warm up all wireless channels, the rest will get loaded when needed.", throwable);
+                }
+
+                return warmUp;
+            });
+        }).thenAcceptAsync(warmUp -> publishWarmUp(warmUp, startTime), ioExecutor).whenComplete((ignored, throwable) -> {
+            warmUpExecutor.shutdown();
+
+            if (throwable != null) {
+                GreenLogger.log(Level.WARNING, "couldn't warm up wireless channels, they will get loaded when needed.", throwable);
+            }
+        });
+    }
+
+    /**
+     * list the channel files of older versions. Global channels are directly in the folder, player specific ones in a subfolder per uuid.
+     * @param dataFolder data folder of the plugin
+     * @return paths of all channel files, relative to the data folder and without file extension
+     */
+    private @NotNull List<String> listChannelFiles(@NotNull File dataFolder) {
+        File channelFolder = new File(dataFolder, ChannelConfig.FOLDER);
+        if (!channelFolder.isDirectory()) {
+            return List.of();
+        }
+
+        try (Stream<Path> paths = Files.walk(channelFolder.toPath(), 2)) {
+            return paths.filter(Files::isRegularFile).map(path -> dataFolder.toPath().relativize(path).toString()).
+                    filter(path -> path.endsWith(ChannelConfig.LEGACY_EXTENSION)).
+                    map(path -> path.substring(0, path.length() - ChannelConfig.LEGACY_EXTENSION.length())).toList();
+        } catch (IOException e) {
+            GreenLogger.log(Level.WARNING, "couldn't list wireless channel files, they will get loaded when needed.", e);
+            return List.of();
+        }
+    }
+
+    /**
+     * hand out the channels read by the warm up. Call only from the io thread, so no change can happen in between
+     * @param warmUp everything the warm up read
+     * @param startTime when the warm up started, in nanoseconds
+     */
+    private void publishWarmUp(@NotNull WarmUp warmUp, long startTime) {
+        warmingUp = false;
+
+        //every channel of the store, the ones left out are known anyway.
+        //so they get loaded the normal way, instead of being mistaken for channels without receivers
+        HashSet<ChannelKey> storeChannels = new HashSet<>(warmUp.storeChannels().keySet());
+        storeChannels.addAll(changedWhileWarmingUp);
+
+        //channels that changed, got loaded or have receivers in worlds that loaded or unloaded meanwhile were read too early
+        HashSet<String> changedPaths = new HashSet<>();
+        for (ChannelKey channelKey : changedWhileWarmingUp) {
+            changedPaths.add(getChannelConfig(channelKey).getPath());
+        }
+        warmUp.storeChannels().keySet().removeAll(changedWhileWarmingUp);
+        warmUp.storeChannels().values().removeIf(locations -> !inLoadedWorlds(locations));
+        warmUp.channelFiles().keySet().removeAll(changedPaths);
+        warmUp.channelFiles().values().removeIf(channelConfig ->
+                !channelConfig.getUnloadedReceivers().isEmpty() || !inLoadedWorlds(channelConfig.getSet()));
+        changedWhileWarmingUp.clear();
+
+        int receivers = 0;
+        for (HashSet<Location> locations : warmUp.storeChannels().values()) {
+            receivers += locations.size();
+        }
+        for (ChannelConfig channelConfig : warmUp.channelFiles().values()) {
+            receivers += channelConfig.getSet().size();
+        }
+
+        //a reload might drop the warm up at the same time
+        synchronized (this) {
+            if (warmUpForgotten) {
+                return;
+            }
+
+            knownStoreChannels.addAll(storeChannels);
+            warmedUpStoreChannels.putAll(warmUp.storeChannels());
+            knownChannelFiles.addAll(warmUp.channelPaths());
+            warmedUpChannelFiles.putAll(warmUp.channelFiles());
+            warmedUp = true;
+        }
+
+        GreenLogger.log(Level.INFO, String.format("Warmed up %d wireless channels with %d receivers in %d ms.",
+                warmUp.storeChannels().size() + warmUp.channelFiles().size(), receivers, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)));
+    }
+
+    /**
+     * @return true, if every location is in a world of the current snapshot of loaded worlds
+     */
+    private boolean inLoadedWorlds(@Nullable Collection<Location> locations) {
+        if (locations != null) {
+            Map<UUID, World> worlds = loadedWorlds.byUUID();
+
+            for (Location location : locations) {
+                if (!worlds.containsKey(location.getWorld().getUID())) {
+                    return false;
+                }
+            }
         }
 
-        ChannelConfig config = new ChannelConfig(channelStr, playerUUID);
+        return true;
+    }
 
-        config.saveCfg(locations);
+    /**
+     * drop everything the warm up read. Cached channels got cleared, so it's unknown which channels where handed out already.
+     * From now on every channel gets loaded the normal way. Call only from the main thread
+     */
+    private void forgetWarmUp() {
+        synchronized (this) {
+            warmUpForgotten = true;
+            warmedUp = false;
+        }
+
+        warmedUpStoreChannels.clear();
+        knownStoreChannels.clear();
+        warmedUpChannelFiles.clear();
+        knownChannelFiles.clear();
     }
 
     protected void load() {
+        // keep the channel states over a reload, on start restore them from the last shutdown.
+        // this happens before any world ticks, so no transmitter will mistake its first update for a change
         // clear cache
-        WirelessListener.inst().clear();
+        HashMap<ChannelKey, Integer> channelStates = WirelessListener.inst().clearAndGetChannelStates();
+        if (channelStates.isEmpty()) {
+            channelStates = channelStateFile.read();
+        }
+        WirelessListener.inst().restoreChannelStates(channelStates);
+        updateLoadedWorlds(null);
 
         WirelessListener.inst().setCompatibilityMode(GreenBook.inst().getConfig().getBoolean(COMPATIBILITY_MODE, DEFAULT_COMPATIBILITY_MODE));
         WirelessListener.inst().setUsePlayerSpecificChannels(GreenBook.inst().getConfig().getBoolean(USE_PLAYER_SPECIFIC_CHANNELS, DEFAULT_USE_PLAYER_SPECIFIC_CHANNELS));
+        WirelessListener.inst().setTrackCosts(GreenBook.inst().getConfig().getBoolean(TRACK_COSTS, DEFAULT_TRACK_COSTS));
+        WirelessListener.inst().setSignalLimits(
+                GreenBook.inst().getConfig().getInt(MAX_CHANNEL_SIGNALS_PER_SECOND, DEFAULT_MAX_CHANNEL_SIGNALS_PER_SECOND),
+                GreenBook.inst().getConfig().getInt(MAX_OWNER_SIGNALS_PER_TICK, DEFAULT_MAX_OWNER_SIGNALS_PER_TICK),
+                GreenBook.inst().getConfig().getInt(MAX_OWNER_SIGNALS_PER_SECOND, DEFAULT_MAX_OWNER_SIGNALS_PER_SECOND),
+                GreenBook.inst().getConfig().getInt(DEBOUNCE_TICKS, DEFAULT_DEBOUNCE_TICKS));
+        WirelessListener.inst().setMaxPropagationDepth(GreenBook.inst().getConfig().getInt(MAX_PROPAGATION_DEPTH, DEFAULT_MAX_PROPAGATION_DEPTH));
+        WirelessListener.inst().setScanMillisPerTick(GreenBook.inst().getConfig().getInt(SCAN_MILLIS_PER_TICK, DEFAULT_SCAN_MILLIS_PER_TICK));
+        WirelessListener.inst().setRegionScanThreads(GreenBook.inst().getConfig().getInt(REGION_SCAN_THREADS, DEFAULT_REGION_SCAN_THREADS));
+        WirelessListener.inst().setReceiverCacheLimits(
+                GreenBook.inst().getConfig().getInt(MAX_CACHED_CHANNELS, DEFAULT_MAX_CACHED_CHANNELS),
+                GreenBook.inst().getConfig().getInt(MAX_CACHED_RECEIVERS, DEFAULT_MAX_CACHED_RECEIVERS),
+                GreenBook.inst().getConfig().getInt(PIN_CACHED_CHANNEL_TICKS, DEFAULT_PIN_CACHED_CHANNEL_TICKS));
+        WirelessListener.inst().setReceiverQuotas(
+                GreenBook.inst().getConfig().getInt(MAX_RECEIVERS_PER_CHANNEL, DEFAULT_MAX_RECEIVERS_PER_CHANNEL),
+                GreenBook.inst().getConfig().getInt(MAX_RECEIVERS_PER_OWNER, DEFAULT_MAX_RECEIVERS_PER_OWNER),
+                GreenBook.inst().getConfig().getInt(MAX_CHANNELS_PER_OWNER, DEFAULT_MAX_CHANNELS_PER_OWNER));
+
+        // open the store before anything can get queued
+        runOnIoThread(this::openStore);
+
+        // warm up only on enable. On a reload the cache got cleared, so the channels of the warm up might be outdated
+        if (!warmUpStarted) {
+            warmUpStarted = true;
+
+            if (GreenBook.inst().getConfig().getBoolean(WARM_UP_CHANNELS, DEFAULT_WARM_UP_CHANNELS)) {
+                warmUpChannels();
+            }
+        } else {
+            forgetWarmUp();
+        }
+
+        // chunks that are already loaded will never call a load event
+        WirelessListener.inst().indexLoadedChunks();
     }
 }
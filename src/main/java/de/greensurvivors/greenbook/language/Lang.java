@@ -16,10 +16,36 @@ public enum Lang implements Cons {
 	//technical values
 	SIGN_TRANSMITTER_ID("Mc1110"),
 	SIGN_TRANSMITTER_NAME("Transmitter"),
+	SIGN_ANALOG_TRANSMITTER_ID("Mc1112"),
+	SIGN_ANALOG_TRANSMITTER_NAME("Analog Transm."),
 	SIGN_RECEIVER_ID("Mc1111"),
 	SIGN_RECEIVER_NAME("Reveiver"),
 	//placing feedback
 	NO_WALLSIGN("You have to place this at a wall."),
+	WIRELESS_QUOTA_CHANNEL_RECEIVERS(String.format("&cThis wireless channel already has &e%s&c receivers, no more are allowed.", VALUE)),
+	WIRELESS_QUOTA_RECEIVERS(String.format("&cYou already own &e%s&c wireless receivers, no more are allowed.", VALUE)),
+	WIRELESS_QUOTA_CHANNELS(String.format("&cYou already own &e%s&c wireless channels, no more are allowed.", VALUE)),
+	//admin feedback
+	WIRELESS_THROTTLED(String.format("&6Wireless channel &e%s&6 sends signals too fast and got throttled.", VALUE)),
+	//command feedback
+	WIRELESS_SCAN_STARTED(String.format("&6Scanning &e%s&6 loaded chunks for wireless receivers.", VALUE)),
+	WIRELESS_SCAN_PROGRESS(String.format("&6Scanned &e%s&6/&e%s&6 chunks for wireless receivers.", VALUE, MAX)),
+	WIRELESS_SCAN_DONE(String.format("&2Found &e%s&2 wireless receivers in &e%s&2 chunks.", VALUE, MAX)),
+	WIRELESS_REGION_SCAN_STARTED(String.format("&6Scanning &e%s&6 region files for wireless receivers.", VALUE)),
+	WIRELESS_REGION_SCAN_PROGRESS(String.format("&6Scanned &e%s&6/&e%s&6 region files for wireless receivers.", VALUE, MAX)),
+	WIRELESS_REGION_SCAN_DONE(String.format("&2Saved &e%s&2 new wireless receivers, of &e%s&2 found in region files.", VALUE, MAX)),
+	WIRELESS_CACHE_CHANNELS(String.format("&6Cached wireless channels: &e%s&6 (limit &e%s&6)", VALUE, MAX)),
+	WIRELESS_CACHE_RECEIVERS(String.format("&6Cached wireless receivers: &e%s&6 (limit &e%s&6)", VALUE, MAX)),
+	WIRELESS_CACHE_HITS(String.format("&6Cache hits: &e%s&6 of &e%s&6 lookups", VALUE, MAX)),
+	WIRELESS_CACHE_EVICTIONS(String.format("&6Evicted channels: &e%s", VALUE)),
+	WIRELESS_OWNERS_HEADER(String.format("&6Top &e%s&6 owners of wireless receivers:", VALUE)),
+	WIRELESS_OWNERS_ENTRY(String.format("&e%s&6: &e%s&6 receivers in &e%s&6 channels", PLAYER, VALUE, MAX)),
+	WIRELESS_OWNERS_GLOBAL("global channels"),
+	WIRELESS_TOP_OWNERS_HEADER("&6Wireless owners costing the most time in the last 1/5/15 minutes:"),
+	WIRELESS_TOP_CHANNELS_HEADER("&6Wireless channels costing the most time in the last 1/5/15 minutes:"),
+	WIRELESS_TOP_ENTRY(String.format("&e%s&6: &e%s&6 ms, &e%s&6 signals, &e%s&6 receivers", PLAYER, VALUE, MAX, PLAYER2)),
+	WIRELESS_TOP_DISABLED("&cTracking the costs of wireless channels is turned off in the config."),
+	WIRELESS_REGION_SCAN_RUNNING("&cRegion files are already getting scanned, please wait until it is done."),
 
 	// /coin command
 	COIN_STOSS_SELF(String.format("&e%s &cdied, by trying to toss themselves a coin.", Lang.PLAYER)),
@@ -75,6 +101,7 @@ public enum Lang implements Cons {
 	NO_PERMISSION_COMMAND("&cYou have no permission to perform this command."),
 	NO_PERMISSION_SOMETHING("&cYou have no permission to do that."),
 	NO_SUCH_PLAYER(String.format("&cCould not get a valid player named %s", VALUE)),
+	NO_SUCH_WORLD(String.format("&cCould not get a world named %s", VALUE)),
 	NO_ITEM_HOLDING("&cYou not are holding a item."),
 	NOT_ENOUGH_ARGS("&cNot enough arguments."),
 	UNKNOWN_ERROR("&cUnknown Error. What happened?");
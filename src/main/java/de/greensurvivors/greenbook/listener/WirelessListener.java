@@ -1,36 +1,82 @@
 package de.greensurvivors.greenbook.listener;
 
+import com.destroystokyo.paper.event.block.BlockDestroyEvent;
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
 import de.greensurvivors.greenbook.GreenBook;
+import de.greensurvivors.greenbook.GreenLogger;
+import de.greensurvivors.greenbook.PermissionUtils;
+import de.greensurvivors.greenbook.config.ChunkReceiverData;
+import de.greensurvivors.greenbook.config.ReceiverCounts;
 import de.greensurvivors.greenbook.config.WireLessConfig;
 import de.greensurvivors.greenbook.language.Lang;
+import de.greensurvivors.greenbook.utils.LongHashMap;
+import de.greensurvivors.greenbook.wireless.ChannelKey;
+import de.greensurvivors.greenbook.wireless.ChannelReceivers;
+import de.greensurvivors.greenbook.wireless.ChunkScanQueue;
+import de.greensurvivors.greenbook.wireless.CostTracker;
+import de.greensurvivors.greenbook.wireless.ReceiverCache;
+import de.greensurvivors.greenbook.wireless.RegionScanner;
+import de.greensurvivors.greenbook.wireless.SignalLimiter;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.Tag;
+import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
+import org.bukkit.block.Lectern;
 import org.bukkit.block.Sign;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.block.data.Levelled;
 import org.bukkit.block.data.type.Switch;
 import org.bukkit.block.data.type.WallSign;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
 import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
 import org.bukkit.event.block.SignChangeEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BookMeta;
 import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-//todo create a command to load signs around the player - a local compatibility mode
 public class WirelessListener implements Listener {
     //pattern to identify transmitters and receivers
     private static final Pattern signPattern = Pattern.compile("\\[(.*?)\\]S?");
@@ -38,12 +84,67 @@ public class WirelessListener implements Listener {
     //used for player specific channels
     private static final NamespacedKey CHANNEL_UUID_KEY = new NamespacedKey(GreenBook.inst(), "channelUUID");
 
-    //cache of recently used receiver location
-    private final HashMap<String, HashSet<Location>> knownReceiverLocations = new HashMap<>();
-    //cached power states to save time.
-    //this is needed since reading the component of a sign multiple times a tick,
-    //every time redstone level of a redstone line updates is too slow
-    private final HashMap<Location, Boolean> lastPowerState = new HashMap<>();
+    //all transmitter signs in loaded chunks, per world uuid and chunk key, by position packed via Block.getBlockKey().
+    //almost every physics event of the server can get rejected by this, without ever touching the block state,
+    //and known transmitters don't have to read their channel from the sign on every signal.
+    //a chunk unloading only has to drop its own entry
+    private final HashMap<UUID, LongHashMap<LongHashMap<Transmitter>>> knownTransmitters = new HashMap<>();
+    //cache of recently used receivers, per owner and channel. Bounded, channels not used for a while get loaded again if needed
+    private final ReceiverCache knownReceivers = new ReceiverCache(Bukkit::getCurrentTick);
+    //receivers saved in loaded chunks, whose channel isn't cached. They get merged into their channel, once it gets loaded,
+    //so receivers lost from storage restore themselves
+    private final HashMap<ChannelKey, HashSet<Location>> chunkReceiverHints = new HashMap<>();
+    //receiver signs that where already validated, per world uuid and chunk key, by position packed via Block.getBlockKey().
+    //reading the lines of a sign on every signal is way too slow, so this only gets dropped if the sign might have changed
+    private final HashMap<UUID, LongHashMap<LongHashMap<ReceiverDescriptor>>> knownReceiverDescriptors = new HashMap<>();
+    //the state every channel should have at the end of this tick. Only the last state a channel got set to counts,
+    //so a transmitter flipping multiple times a tick will only update its receivers once
+    private LinkedHashMap<ChannelKey, ChannelState> pendingChannelStates = new LinkedHashMap<>();
+    //channels that are getting loaded right now. Everyone missing the cache of the same channel shares the same load
+    private final HashMap<ChannelKey, CompletableFuture<ChannelReceivers>> loadingChannels = new HashMap<>();
+    //the newest state of channels, that changed while their receivers where still loading.
+    //will get applied once the receivers are known
+    private final HashMap<ChannelKey, ChannelState> waitingChannelStates = new HashMap<>();
+    //states of channels that where held back, because the channel was throttled or didn't settle yet.
+    //will get sent in a later tick, if the channel doesn't change again before
+    private LinkedHashMap<ChannelKey, ChannelState> heldChannelStates = new LinkedHashMap<>();
+    //the tick every channel last changed in, only used for debouncing
+    private final HashMap<ChannelKey, Integer> channelChangeTicks = new HashMap<>();
+    //limits how often a channel may send
+    private final SignalLimiter signalLimiter = new SignalLimiter();
+    //how much time every channel and owner cost lately
+    private final CostTracker costTracker = new CostTracker();
+    //the channel whose receivers get updated right now and what caused it to change, null outside of updating receivers.
+    //a transmitter changing meanwhile was most likely powered by one of these receivers
+    private @Nullable ChannelKey propagatingChannel = null;
+    private @Nullable PropagationCause propagatingCause = null;
+    //the tick every channel was last reported in, for being part of a feedback loop or getting cut off,
+    //and how often it would have been reported since then
+    private final HashMap<ChannelKey, Integer> lastPropagationReportTicks = new HashMap<>();
+    private final HashMap<ChannelKey, Integer> suppressedPropagationReports = new HashMap<>();
+    //the chain of channels that caused the last state of a channel, only for channels whose last state was caused by other channels.
+    //receivers catching up with that state continue the chain, so a loop through unloaded chunks still gets cut off
+    private final HashMap<ChannelKey, PropagationCause> lastChannelCauses = new HashMap<>();
+    //the signal strength every channel was set to the last time it changed, restored after a restart
+    private final HashMap<ChannelKey, Integer> lastChannelStates = new HashMap<>();
+    //the tick the channel states where last saved in
+    private int lastChannelStateSaveTick = Integer.MIN_VALUE;
+    //channels that changed while some of their receivers where in unloaded chunks, per world and chunk key.
+    //wireless never loads a chunk, instead these receivers get caught up with the last state of their channel once the chunk loads
+    private final HashMap<World, LongHashMap<HashSet<ChannelKey>>> unloadedChunkChannels = new HashMap<>();
+    //the same for worlds that unloaded, per world uuid, so they don't keep the world in memory.
+    //they get moved back once the world loads again
+    private final HashMap<UUID, LongHashMap<HashSet<ChannelKey>>> unloadedWorldChunkChannels = new HashMap<>();
+    //chunks that loaded this tick and have receivers to catch up with
+    private ArrayList<ChunkChannels> loadedChunkChannels = new ArrayList<>();
+    //chunks waiting to get scanned for receiver signs, in compatibility mode or via command
+    private final ChunkScanQueue chunkScanQueue = new ChunkScanQueue();
+    //receivers found by scanning chunks this tick, per owner and channel. They get saved together at the end of the tick
+    private final HashMap<ChannelKey, ArrayList<Location>> scannedReceivers = new HashMap<>();
+    //the scan of region files that is running right now, null if none is. Only one may run at a time
+    private @Nullable RegionScanner runningRegionScan = null;
+    //number of worker threads reading region files while scanning them
+    private int regionScanThreads = 2;
 
     //these settings are only accessible via config file
     //configurates if every player should have their own channel based on their uuid,
@@ -52,10 +153,102 @@ public class WirelessListener implements Listener {
     private boolean
             usePlayerSpecificChannels = true,
             compatibilityMode = false;
+    //how many ticks a channel has to keep its state, before it gets sent. 0 sends every change
+    private int debounceTicks = 0;
+    //how much time per tick may be spent on scanning chunks for receiver signs
+    private long scanNanosPerTick = TimeUnit.MILLISECONDS.toNanos(2);
+    //how many wireless channels in a row may trigger each other, before the chain gets cut off
+    private int maxPropagationDepth = 8;
+    //how many receivers a channel may have, and how many receivers and channels one owner may have. 0 means unlimited
+    private int maxReceiversPerChannel = 0, maxReceiversPerOwner = 0, maxChannelsPerOwner = 0;
+    //a feedback loop or cut off chain gets reported at most once in this many ticks per channel
+    private static final int PROPAGATION_REPORT_INTERVAL_TICKS = 20 * 60;
+    //the receiver cache gets checked against its limits once in this many ticks
+    private static final int CACHE_EVICTION_INTERVAL_TICKS = 20;
+    //the strongest redstone signal, plain transmitters send either this or nothing
+    private static final int MAX_SIGNAL_STRENGTH = 15;
 
     //this class keeps track of its own instance, so it's basically static
     private static WirelessListener instance;
 
+    /**
+     * the chain of wireless channels, whose receivers powered a transmitter and so caused its channel to change
+     * @param channelKeys the channels in the order they sent their signals, the last one powered the transmitter
+     * @param transmitterLocations the transmitter every channel powered, at the same index
+     */
+    private record PropagationCause(@NotNull List<ChannelKey> channelKeys, @NotNull List<Location> transmitterLocations) {
+        /**
+         * @return number of channels in the chain
+         */
+        private int depth() {
+            return channelKeys.size();
+        }
+    }
+
+    /**
+     * a state a channel should get set to
+     * @param signalStrength the signal strength the receivers of the channel should output, 0 to 15
+     * @param cause the chain of channels that caused this state, null if it wasn't caused by another wireless channel
+     */
+    private record ChannelState(int signalStrength, @Nullable PropagationCause cause) {
+        //states caused by plain redstone, one per signal strength, so most of the states don't need to get allocated
+        private static final ChannelState[] UNCAUSED = new ChannelState[MAX_SIGNAL_STRENGTH + 1];
+
+        static {
+            for (int signalStrength = 0; signalStrength <= MAX_SIGNAL_STRENGTH; signalStrength++) {
+                UNCAUSED[signalStrength] = new ChannelState(signalStrength, null);
+            }
+        }
+
+        /**
+         * @param signalStrength the signal strength, 0 to 15
+         * @return the state of a signal strength caused by plain redstone
+         */
+        private static @NotNull ChannelState of(int signalStrength) {
+            return UNCAUSED[signalStrength];
+        }
+    }
+
+    /**
+     * a known transmitter sign
+     */
+    private static final class Transmitter {
+        //owner and channel the transmitter sends on
+        private final @NotNull ChannelKey channelKey;
+        //true, if the transmitter sends the full signal strength, instead of just on or off
+        private final boolean analog;
+        //cached signal strength to save time, null if unknown.
+        //this is needed since reading the component of a sign multiple times a tick,
+        //every time redstone level of a redstone line updates is too slow
+        private @Nullable Integer lastSignalStrength = null;
+
+        private Transmitter(@NotNull ChannelKey channelKey, boolean analog) {
+            this.channelKey = channelKey;
+            this.analog = analog;
+        }
+    }
+
+    /**
+     * a receiver sign that was already validated
+     */
+    private static final class ReceiverDescriptor {
+        //owner and channel the receiver listens on
+        private final @NotNull ChannelKey channelKey;
+        //the direction the sign is facing
+        private final @NotNull BlockFace facing;
+        //the block the lever, lectern or composter of the receiver should be
+        private final @NotNull Block outputBlock;
+        //signal strength a lectern output was last turned to, -1 if unknown.
+        //the page is only in the block state, and getting it copies the whole book, so it is only done if the signal changed
+        private int lecternSignalStrength = -1;
+
+        private ReceiverDescriptor(@NotNull ChannelKey channelKey, @NotNull BlockFace facing, @NotNull Block outputBlock) {
+            this.channelKey = channelKey;
+            this.facing = facing;
+            this.outputBlock = outputBlock;
+        }
+    }
+
     private WirelessListener(){}
 
     /**
@@ -72,7 +265,49 @@ public class WirelessListener implements Listener {
      * clears list of cached receiver locations
      */
     public void clear() {
-        knownReceiverLocations.clear();
+        knownReceivers.clear();
+        chunkReceiverHints.clear();
+        knownReceiverDescriptors.clear();
+        knownTransmitters.clear();
+        pendingChannelStates.clear();
+        loadingChannels.clear();
+        waitingChannelStates.clear();
+        heldChannelStates.clear();
+        channelChangeTicks.clear();
+        signalLimiter.clear();
+        costTracker.clear();
+        lastChannelStates.clear();
+        lastPropagationReportTicks.clear();
+        suppressedPropagationReports.clear();
+        lastChannelCauses.clear();
+        unloadedChunkChannels.clear();
+        unloadedWorldChunkChannels.clear();
+        loadedChunkChannels.clear();
+        chunkScanQueue.clear();
+        scannedReceivers.clear();
+
+        //the results of a running scan would get cached into the cleared listener
+        if (runningRegionScan != null) {
+            runningRegionScan.cancel();
+            runningRegionScan = null;
+            GreenLogger.log(Level.INFO, "cancelled the running scan of region files for wireless receivers.");
+        }
+    }
+
+    /**
+     * index the transmitters of all chunks that are already loaded.
+     * Needed, since no ChunkLoadEvent will get called for them (spawn chunks or after a reload)
+     */
+    public void indexLoadedChunks() {
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                for (BlockState state : chunk.getTileEntities(block -> Tag.SIGNS.isTagged(block.getType()), false)) {
+                    if (state instanceof Sign sign && isTransmitter(sign)) {
+                        addTransmitter(sign.getBlock(), getChannelKey(sign, null), isAnalogTransmitter(sign));
+                    }
+                }
+            }
+        }
     }
 
     //todo command 4 this
@@ -97,236 +332,1518 @@ public class WirelessListener implements Listener {
     }
 
     /**
-     * add a receiver to the cached ones
-     * @param receiverLocation the location of the receiver sign
-     * @param channel channel the receiver belongs to
+     * set how often channels may send signals and how long a channel has to keep its state before it gets sent.
+     * Protects the server from fast redstone clocks wired to transmitters.
+     * @param maxChannelSignalsPerSecond maximum number of signals per second for every channel, 0 means unlimited
+     * @param maxOwnerSignalsPerTick maximum number of signals per tick of all channels of one owner together, 0 means unlimited
+     * @param maxOwnerSignalsPerSecond maximum number of signals per second of all channels of one owner together, 0 means unlimited
+     * @param debounceTicks how many ticks a channel has to keep its state, before it gets sent. 0 sends every change
      */
-    private void addReceiver(@NotNull Location receiverLocation, @NotNull String channel) {
-        knownReceiverLocations.computeIfAbsent(channel, k -> new HashSet<>());
-        knownReceiverLocations.get(channel).add(receiverLocation.toBlockLocation());
+    public void setSignalLimits(int maxChannelSignalsPerSecond, int maxOwnerSignalsPerTick, int maxOwnerSignalsPerSecond, int debounceTicks) {
+        signalLimiter.setLimits(maxChannelSignalsPerSecond, maxOwnerSignalsPerTick, maxOwnerSignalsPerSecond);
+        this.debounceTicks = Math.max(0, debounceTicks);
     }
 
     /**
-     * if a transmitter sign gets powered it turns all the receiver signs of the same channel on (or off if unpowered)
+     * @return a copy of the last signal strength every channel was set to
      */
-    @EventHandler(ignoreCancelled = true)
-    private void onSignPowered(BlockPhysicsEvent event) {
-        Block eBlock = event.getBlock();
+    public @NotNull HashMap<ChannelKey, Integer> getChannelStates() {
+        return new HashMap<>(lastChannelStates);
+    }
 
-        if (eBlock.getState() instanceof Sign transmitterSign) {
-            PlainTextComponentSerializer plainSerializer = PlainTextComponentSerializer.plainText();
+    /**
+     * clears everything like {@link #clear()}, but hands out the channel states first,
+     * so they can still get saved or restored afterwards
+     * @return the last signal strength every channel was set to
+     */
+    public @NotNull HashMap<ChannelKey, Integer> clearAndGetChannelStates() {
+        HashMap<ChannelKey, Integer> channelStates = getChannelStates();
+        clear();
+        return channelStates;
+    }
 
-            String line2 = plainSerializer.serialize(transmitterSign.line(1)).trim();
+    /**
+     * restore the last states of channels, like after a restart
+     * @param channelStates the last signal strength every channel was set to
+     */
+    public void restoreChannelStates(@NotNull Map<ChannelKey, Integer> channelStates) {
+        lastChannelStates.putAll(channelStates);
+    }
 
-            Matcher matcher = signPattern.matcher(line2);
-            // clear line 2 of square brackets []
-            if (matcher.matches()) {
-                line2 = matcher.group(1);
-
-                if (line2.equalsIgnoreCase(Lang.SIGN_TRANSMITTER_ID.get())) {
-                    //todo: maybe use a lectern as receiver to transmit all possible redstone signal strengths (optional)
-                    //todo: might cache transmitters for this
-                    //but than the reading of the components is to slow.
-
-                    // test if the power-level has changed from off to on or reverse.
-                    // this is an imported check, for not only makes it all the following checks and updates obsolete,
-                    // but also reading the component lines form a sign is not fast enough to compete against a redstone wire signal
-                    // and didn't include all lines anymore.
-                    boolean powerNow = eBlock.getBlockPower() > 0;
-                    Boolean powerLast = lastPowerState.get(eBlock.getLocation());
-                    if (powerLast == null || (powerLast != powerNow)) {
-                        lastPowerState.put(eBlock.getLocation(), powerNow);
-
-                        String transmitterChannel = plainSerializer.serialize(transmitterSign.line(2));
-
-                        HashSet<Location> receiverLocations = knownReceiverLocations.get(transmitterChannel);
-                        String transmitterPlayerUUIDStr = transmitterSign.getPersistentDataContainer().get(CHANNEL_UUID_KEY, PersistentDataType.STRING);
-
-                        if (receiverLocations == null) {
-                            receiverLocations = WireLessConfig.inst().loadReceiverLocations(transmitterChannel, usePlayerSpecificChannels ? transmitterPlayerUUIDStr : null);
-                            knownReceiverLocations.put(transmitterChannel, receiverLocations);
-                        }
+    /**
+     * save the channel states together with the worlds, so they match the levers saved in the world
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onWorldSave(WorldSaveEvent event) {
+        //every world fires its own event, the states only need to be saved once per tick
+        int currentTick = Bukkit.getCurrentTick();
 
-                        if (receiverLocations != null) {
-                            for (Location receiverLocation : receiverLocations) {
-
-                                // -- update power of the receiver --
-                                // test if the receiver is loaded
-                                if (receiverLocation.getChunk().isLoaded()) {
-                                    Block receiverBlock = receiverLocation.getBlock();
-
-                                    // test if receiver is a wall sign
-                                    if (receiverBlock.getBlockData() instanceof WallSign wallSign) {
-                                        Sign receiverSign = (Sign) receiverBlock.getState();
-
-                                        // test if the second line is stating the sign is a receiver
-                                        line2 = plainSerializer.serialize(receiverSign.line(1)).trim();
-                                        matcher = signPattern.matcher(line2);
-
-                                        if (matcher.matches()) {
-                                            line2 = matcher.group(1);
-                                            if (line2.equalsIgnoreCase(Lang.SIGN_RECEIVER_ID.get())) {
-
-                                                String receiverPlayerUUIDStr = transmitterSign.getPersistentDataContainer().get(CHANNEL_UUID_KEY, PersistentDataType.STRING);
-
-                                                // if user specific channels is turned on, compare the two uuid lines
-                                                if (usePlayerSpecificChannels && receiverPlayerUUIDStr != null && !receiverPlayerUUIDStr.equals(transmitterPlayerUUIDStr)) {
-                                                    return;
-                                                }
-
-                                                // sign is a receiver, check the channel
-                                                String receiverChannel = plainSerializer.serialize(receiverSign.line(2));
-                                                if (transmitterChannel.equals(receiverChannel)) {
-                                                    // update lever
-                                                    Location leverLoc = receiverLocation.clone().add(wallSign.getFacing().getDirection().multiply(-2));
-
-                                                    if (leverLoc.getBlock().getBlockData() instanceof Switch leverData) {
-                                                        leverData.setPowered(powerNow);
-                                                        leverLoc.getBlock().setBlockData(leverData);
-                                                    }
-
-                                                } else {
-                                                    // update channel, should never occur, but fixing it anyway
-                                                    knownReceiverLocations.get(transmitterChannel).remove(receiverLocation.toBlockLocation());
-
-                                                    addReceiver(receiverLocation, receiverChannel);
-                                                }
-                                            } else {
-                                                // remove from list
-                                                knownReceiverLocations.get(transmitterChannel).remove(receiverLocation.toBlockLocation());
-                                            }
-                                        } else {
-                                            // remove from list
-                                            knownReceiverLocations.get(transmitterChannel).remove(receiverLocation.toBlockLocation());
-                                        }
-                                    } else {
-                                        // remove from list
-                                        knownReceiverLocations.get(transmitterChannel).remove(receiverLocation.toBlockLocation());
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+        if (currentTick != lastChannelStateSaveTick) {
+            lastChannelStateSaveTick = currentTick;
+            WireLessConfig.inst().saveChannelStates();
         }
     }
 
-    //todo feedback message + sign destroy if no permission
-    //todo add player name on last line to indicate owner visually
+    /**
+     * set how many worker threads read region files while scanning them for receiver signs.
+     * Applies to the next scan, more threads than cores don't help.
+     * @param regionScanThreads number of threads, at least one
+     */
+    public void setRegionScanThreads(int regionScanThreads) {
+        this.regionScanThreads = Math.max(1, Math.min(regionScanThreads, Runtime.getRuntime().availableProcessors()));
+    }
 
     /**
-     * if a reciver gets placed, safe its location to file and cache it
+     * set how much time per tick may be spent on scanning chunks for receiver signs.
+     * At least one chunk gets scanned every tick, as long as some are queued.
+     * @param scanMillisPerTick time in milliseconds
      */
-    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
-    private void onSignPlace(SignChangeEvent event) {
-        PlainTextComponentSerializer plainSerializer = PlainTextComponentSerializer.plainText();
-        Component line2Comp = event.line(1);
+    public void setScanMillisPerTick(int scanMillisPerTick) {
+        this.scanNanosPerTick = TimeUnit.MILLISECONDS.toNanos(Math.max(0, scanMillisPerTick));
+    }
 
-        if (line2Comp != null){
-            String line2Str = plainSerializer.serialize(line2Comp).trim();
-            Sign changedSign = (Sign) event.getBlock().getState();
-            Matcher matcher = signPattern.matcher(line2Str);
+    /**
+     * set how many receivers may stay cached. If a limit is exceeded, the least recently used channels get evicted
+     * and will get loaded from storage again, the next time they are needed. 0 means unlimited
+     * @param maxCachedChannels maximum number of cached channels
+     * @param maxCachedReceivers maximum number of receivers of all cached channels together
+     * @param pinTicks channels used within this many ticks are hot and stay cached, even above the limits. 0 pins none
+     */
+    public void setReceiverCacheLimits(int maxCachedChannels, int maxCachedReceivers, int pinTicks) {
+        knownReceivers.setLimits(maxCachedChannels, maxCachedReceivers, pinTicks);
+    }
 
-            //clear line 2 of square brackets []
-            if (matcher.matches()) {
-                line2Str = matcher.group(1);
+    /**
+     * set how many receivers a channel and an owner may have, and how many channels an owner may have receivers on.
+     * Only placing new receivers checks these, existing ones keep working. 0 means unlimited,
+     * players may have permissions for higher limits.
+     * @param maxReceiversPerChannel maximum number of receivers of every channel
+     * @param maxReceiversPerOwner maximum number of receivers of all channels of one owner together
+     * @param maxChannelsPerOwner maximum number of channels with receivers of one owner
+     */
+    public void setReceiverQuotas(int maxReceiversPerChannel, int maxReceiversPerOwner, int maxChannelsPerOwner) {
+        this.maxReceiversPerChannel = Math.max(0, maxReceiversPerChannel);
+        this.maxReceiversPerOwner = Math.max(0, maxReceiversPerOwner);
+        this.maxChannelsPerOwner = Math.max(0, maxChannelsPerOwner);
+    }
+
+    /**
+     * set if the time spent on every channel should get tracked, to find out whose channels cost the most
+     * @param trackCosts true, if costs should get tracked
+     */
+    public void setTrackCosts(boolean trackCosts) {
+        costTracker.setEnabled(trackCosts);
+    }
+
+    /**
+     * @return the costs of channels and owners of the last minutes
+     */
+    public @NotNull CostTracker getCostTracker() {
+        return costTracker;
+    }
 
-                if (line2Str.equalsIgnoreCase(Lang.SIGN_RECEIVER_ID.get())) {
-                    if (Tag.WALL_SIGNS.isTagged(event.getBlock().getType())) {
-                        //set the name of the ic
-                        event.line(0, Lang.build(Lang.SIGN_RECEIVER_NAME.get()));
+    /**
+     * @return the cache of receivers, to get its size and statistics
+     */
+    public @NotNull ReceiverCache getReceiverCache() {
+        return knownReceivers;
+    }
 
-                        //set the uuid of the player if needed
-                        String playerUUIDStr = null;
-                        if (usePlayerSpecificChannels) {
-                            playerUUIDStr = event.getPlayer().getUniqueId().toString();
+    /**
+     * queue all loaded chunks around a location to get scanned for receiver signs, like the compatibility mode does.
+     * The sender gets told about the progress.
+     * @param sender who requested the scan
+     * @param center location to scan around
+     * @param chunkRadius radius in chunks
+     * @return number of chunks that got queued
+     */
+    public int scanAround(@NotNull CommandSender sender, @NotNull Location center, int chunkRadius) {
+        World world = center.getWorld();
+        int centerX = center.getBlockX() >> 4, centerZ = center.getBlockZ() >> 4;
+        ChunkScanQueue.ScanJob job = new ChunkScanQueue.ScanJob(sender);
 
-                            changedSign.getPersistentDataContainer().set(CHANNEL_UUID_KEY, PersistentDataType.STRING, playerUUIDStr);
-                        }
+        for (int x = centerX - chunkRadius; x <= centerX + chunkRadius; x++) {
+            for (int z = centerZ - chunkRadius; z <= centerZ + chunkRadius; z++) {
+                if (world.isChunkLoaded(x, z)) {
+                    chunkScanQueue.queue(world, Chunk.getChunkKey(x, z), job);
+                }
+            }
+        }
 
-                        Component channel = event.line(2);
-                        String channelStr;
+        return job.getTotal();
+    }
 
-                        if (channel == null) {
-                            channelStr = "";
-                        } else {
-                            channelStr = plainSerializer.serialize(channel);
-                        }
+    /**
+     * look at every wall sign of a chunk and remember the receivers, so they can get saved together
+     * @param chunk the chunk to scan
+     * @return number of receiver signs found
+     */
+    private int scanChunkForReceivers(@NotNull Chunk chunk) {
+        int found = 0;
+        HashMap<ChannelKey, ArrayList<Location>> chunkReceivers = new HashMap<>();
 
-                        //cache the new receiver
-                        this.addReceiver(event.getBlock().getLocation(), channelStr);
+        for (BlockState state : chunk.getTileEntities(block -> Tag.WALL_SIGNS.isTagged(block.getType()), false)) {
+            if (state instanceof Sign sign && isReceiver(sign)) {
+                ChannelKey channelKey = getReceiverChannelKey(sign);
+                scannedReceivers.computeIfAbsent(channelKey, k -> new ArrayList<>()).add(state.getLocation());
+                chunkReceivers.computeIfAbsent(channelKey, k -> new ArrayList<>()).add(state.getLocation());
+                found++;
+            }
+        }
+
+        //every sign of the chunk was looked at, so this is exactly what the chunk has
+        ChunkReceiverData.write(chunk, chunkReceivers);
+
+        return found;
+    }
+
+    /**
+     * cache the receivers found by scanning chunks and save the new ones, one batch per channel
+     */
+    private void saveScannedReceivers() {
+        scannedReceivers.forEach((channelKey, locations) ->
+                getReceivers(channelKey).thenAccept(receivers -> {
+                    ArrayList<Location> newLocations = new ArrayList<>();
 
-                        WireLessConfig.inst().saveReceiverLocations(channelStr, knownReceiverLocations.get(channelStr), playerUUIDStr);
-                    } else {
-                        event.getPlayer().sendMessage(Lang.build(Lang.NO_WALLSIGN.get()));
-                        event.getBlock().setType(Material.AIR);
-                        for (ItemStack signItem : event.getBlock().getDrops()) {
-                            event.getBlock().getLocation().getWorld().dropItemNaturally(event.getBlock().getLocation(), signItem);
+                    for (Location location : locations) {
+                        if (receivers.add(location)) {
+                            newLocations.add(location);
                         }
                     }
-                } else if (line2Str.equalsIgnoreCase(Lang.SIGN_TRANSMITTER_ID.get())) {
-                    //set the name of the ic
-                    event.line(0, Lang.build(Lang.SIGN_TRANSMITTER_NAME.get()));
 
-                    //set the uuid of the player if needed
-                    if (usePlayerSpecificChannels) {
-                        changedSign.getPersistentDataContainer().set(CHANNEL_UUID_KEY, PersistentDataType.STRING, event.getPlayer().getUniqueId().toString());
+                    if (!newLocations.isEmpty()) {
+                        WireLessConfig.inst().addReceiverLocations(channelKey, newLocations);
                     }
+                }));
+
+        scannedReceivers.clear();
+    }
+
+    /**
+     * test if the plain lines of a sign that isn't loaded describe a receiver, the same way a loaded sign would get tested.
+     * Threadsafe.
+     * @param lines the plain text of the 4 lines of the sign
+     * @param ownerUUID the uuid saved in the persistent data of the sign, if any
+     * @return owner and channel of the receiver, or null if the sign isn't one
+     */
+    private @Nullable ChannelKey parseReceiver(@NotNull String @NotNull [] lines, @Nullable String ownerUUID) {
+        Matcher matcher = signPattern.matcher(lines[1].trim());
+
+        // clear line 2 of square brackets []
+        if (!matcher.matches() || !matcher.group(1).equalsIgnoreCase(Lang.SIGN_RECEIVER_ID.get())) {
+            return null;
+        }
+
+        UUID owner = null;
+        if (usePlayerSpecificChannels) {
+            try {
+                if (ownerUUID != null) {
+                    owner = UUID.fromString(ownerUUID);
+                } else {
+                    //legacy signs might have the uuid of their owner on the last line
+                    owner = UUID.fromString(lines[3].trim());
                 }
+            } catch (IllegalArgumentException ignored) {
             }
         }
+
+        return ChannelKey.of(owner, lines[2]);
     }
 
-    //todo load uuid from persistant data storage to restore lost receiver files
     /**
-     * iterates through all blocks in a freshly loaded chunk to find legacy signs
-     * and signs that where deleted from config but not from world
-     * To work the compatibilityMode have to get turned on
-     * @param event
+     * find every receiver sign of the worlds by reading their region files on worker threads, without loading any chunk.
+     * New receivers get saved and cached, the sender gets told about the progress.
+     * Chunks should get saved first, or changes that are only in memory will be missed.
+     * @param sender who requested the scan
+     * @param worlds worlds to scan
+     * @return false, if a scan is already running
      */
-    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
-    private void onChunkLoad(final ChunkLoadEvent event) {
-        if (compatibilityMode) {
-            for (BlockState state : event.getChunk().getTileEntities(block -> Tag.SIGNS.isTagged(block.getType()), false)) {
-                if ((state instanceof Sign sign)) {
-                    PlainTextComponentSerializer plainSerializer = PlainTextComponentSerializer.plainText();
-                    String line2 = plainSerializer.serialize(sign.line(1)).trim();
-                    Matcher matcher = signPattern.matcher(line2);
+    public boolean scanRegionFiles(@NotNull CommandSender sender, @NotNull List<World> worlds) {
+        if (runningRegionScan != null) {
+            return false;
+        }
 
-                    //clear line 2 of square brackets []
-                    if (matcher.matches()) {
-                        line2 = matcher.group(1);
+        final RegionScanner scanner = new RegionScanner(this::parseReceiver, CHANNEL_UUID_KEY.toString(), regionScanThreads);
+        runningRegionScan = scanner;
+        final long startTime = System.nanoTime();
 
-                        if (line2.equalsIgnoreCase(Lang.SIGN_RECEIVER_ID.get())) {
-                            if (Tag.WALL_SIGNS.isTagged(state.getType())) {
-                                Component channel = sign.line(2);
+        //report the progress every 5 seconds, until done
+        final BukkitTask progressTask = Bukkit.getScheduler().runTaskTimer(GreenBook.inst(), () ->
+                sender.sendMessage(Lang.build(Lang.WIRELESS_REGION_SCAN_PROGRESS.get().
+                        replace(Lang.VALUE, String.valueOf(scanner.getRegionsScanned())).
+                        replace(Lang.MAX, String.valueOf(scanner.getRegionsTotal())))), 100, 100);
 
-                                String channelStr = plainSerializer.serialize(channel);
+        //a scan that fails to start must not block the next one
+        boolean started = false;
+        try {
+            CompletableFuture<HashMap<ChannelKey, List<Location>>> scanFuture = scanner.scan(worlds);
+            sender.sendMessage(Lang.build(Lang.WIRELESS_REGION_SCAN_STARTED.get().replace(Lang.VALUE, String.valueOf(scanner.getRegionsTotal()))));
 
-                                //cache the new receiver
-                                this.addReceiver(state.getLocation(), channelStr);
+            scanFuture.thenCompose(WireLessConfig.inst()::mergeReceiverLocations).whenCompleteAsync((newReceivers, throwable) -> {
+                progressTask.cancel();
 
-                                String playerUUIDStr = plainSerializer.serialize(sign.line(3));
-                                WireLessConfig.inst().saveReceiverLocations(channelStr, knownReceiverLocations.get(channelStr), usePlayerSpecificChannels ? playerUUIDStr : null);
-                            }
-                        }
-                    }
+                //the listener got cleared meanwhile, a new scan might be running already
+                if (scanner.isCancelled()) {
+                    return;
+                }
+                runningRegionScan = null;
+
+                if (throwable != null) {
+                    GreenLogger.log(Level.SEVERE, "couldn't scan region files for wireless receivers", throwable);
+                    sender.sendMessage(Lang.build(Lang.UNKNOWN_ERROR.get()));
+                    return;
                 }
+
+                //the channels that are cached right now would miss the new receivers
+                cacheReceiverLocations(scanFuture.join());
+
+                GreenLogger.log(Level.INFO, String.format("Scanned %d region files in %d s and found %d wireless receivers, %d of them where new. %d chunks couldn't get read.",
+                        scanner.getRegionsTotal(), TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime),
+                        scanner.getReceiversFound(), newReceivers, scanner.getFailedChunks()));
+                sender.sendMessage(Lang.build(Lang.WIRELESS_REGION_SCAN_DONE.get().
+                        replace(Lang.VALUE, String.valueOf(newReceivers)).
+                        replace(Lang.MAX, String.valueOf(scanner.getReceiversFound()))));
+            }, Bukkit.getScheduler().getMainThreadExecutor(GreenBook.inst()));
+            started = true;
+        } finally {
+            if (!started) {
+                progressTask.cancel();
+                runningRegionScan = null;
             }
         }
+
+        return true;
     }
 
     /**
-     * remove cached locations, if the chunk unloads the location is in
+     * add receivers to the channels that are cached right now, without saving them.
+     * Channels that aren't cached will load them from storage once they are needed.
+     * @param receivers receivers per owner and channel, might include known ones
      */
-    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
-    private void onChunkUnload(final ChunkUnloadEvent event) {
-        //unload cache if not needed
-        for (Location location : lastPowerState.keySet()) {
-            if (location.getChunk() == event.getChunk()) {
-                lastPowerState.remove(location);
+    private void cacheReceiverLocations(@NotNull Map<ChannelKey, List<Location>> receivers) {
+        receivers.forEach((channelKey, locations) -> {
+            ChannelReceivers channelReceivers = knownReceivers.peek(channelKey);
+
+            if (channelReceivers != null) {
+                for (Location location : locations) {
+                    channelReceivers.add(location);
+                }
+            }
+        });
+    }
+
+    /**
+     * set how many wireless channels in a row may trigger each other, before the chain gets cut off.
+     * A receiver powering a transmitter of its own or another channel would otherwise loop forever.
+     * @param maxPropagationDepth maximum length of a chain, at least 1
+     */
+    public void setMaxPropagationDepth(int maxPropagationDepth) {
+        this.maxPropagationDepth = Math.max(1, maxPropagationDepth);
+    }
+
+    /**
+     * get the owner of a wireless sign, if player specific channels are used
+     * @param sign transmitter or receiver sign
+     * @param fallbackOwner owner to assume, if the sign doesn't know its owner (legacy signs)
+     * @return uuid of the owning player or null if the channel is global
+     */
+    private @Nullable UUID getOwner(@NotNull Sign sign, @Nullable UUID fallbackOwner) {
+        if (!usePlayerSpecificChannels) {
+            return null;
+        }
+
+        String playerUUIDStr = sign.getPersistentDataContainer().get(CHANNEL_UUID_KEY, PersistentDataType.STRING);
+        if (playerUUIDStr != null) {
+            try {
+                return UUID.fromString(playerUUIDStr);
+            } catch (IllegalArgumentException e) {
+                GreenLogger.log(Level.WARNING, "invalid owner uuid '" + playerUUIDStr + "' of wireless sign at " + sign.getLocation());
+            }
+        }
+
+        return fallbackOwner;
+    }
+
+    /**
+     * get the key of the channel a wireless sign belongs to
+     * @param sign transmitter or receiver sign
+     * @param fallbackOwner owner to assume, if the sign doesn't know its owner (legacy signs)
+     * @return the key of owner and channel
+     */
+    private @NotNull ChannelKey getChannelKey(@NotNull Sign sign, @Nullable UUID fallbackOwner) {
+        return ChannelKey.of(getOwner(sign, fallbackOwner), PlainTextComponentSerializer.plainText().serialize(sign.line(2)));
+    }
+
+    /**
+     * get the key of the channel a receiver sign belongs to
+     * @param sign receiver sign
+     * @return the key of owner and channel
+     */
+    private @NotNull ChannelKey getReceiverChannelKey(@NotNull Sign sign) {
+        //legacy signs might have the uuid of their owner on the last line
+        UUID legacyOwner = null;
+        try {
+            legacyOwner = UUID.fromString(PlainTextComponentSerializer.plainText().serialize(sign.line(3)).trim());
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        return getChannelKey(sign, legacyOwner);
+    }
+
+    /**
+     * @param channelKey owner and channel
+     * @return true, if the channel has a state that wasn't sent to its receivers yet
+     */
+    private boolean hasUnsentState(@NotNull ChannelKey channelKey) {
+        return pendingChannelStates.containsKey(channelKey) || heldChannelStates.containsKey(channelKey) || waitingChannelStates.containsKey(channelKey);
+    }
+
+    /**
+     * get the receivers of a channel. If they are not cached, they get loaded from file asynchronously.
+     * The returned future always completes on the main thread.
+     * @param channelKey owner and channel the receivers belong to
+     * @return future of the (maybe empty) receivers of this channel
+     */
+    private @NotNull CompletableFuture<ChannelReceivers> getReceivers(@NotNull ChannelKey channelKey) {
+        ChannelReceivers receivers = knownReceivers.get(channelKey);
+        if (receivers != null) {
+            return CompletableFuture.completedFuture(receivers);
+        }
+
+        //channels that where loaded on enable don't have to wait for the disk
+        HashSet<Location> receiverLocations = WireLessConfig.inst().getWarmedUpReceiverLocations(channelKey);
+        if (receiverLocations != null) {
+            receivers = new ChannelReceivers(receiverLocations);
+            cacheReceivers(channelKey, receivers);
+            return CompletableFuture.completedFuture(receivers);
+        }
+
+        CompletableFuture<ChannelReceivers> loadingFuture = loadingChannels.get(channelKey);
+        if (loadingFuture == null || loadingFuture.isCompletedExceptionally()) {
+            loadingFuture = WireLessConfig.inst().loadReceiverLocationsAsync(channelKey).handleAsync((loadedLocations, throwable) -> {
+                loadingChannels.remove(channelKey);
+
+                if (throwable != null) {
+                    waitingChannelStates.remove(channelKey);
+                    GreenLogger.log(Level.SEVERE, "couldn't load receivers of wireless channel " + channelKey, throwable);
+                    throw new CompletionException(throwable);
+                }
+
+                //remember channels without receivers too, so they don't get looked up on every signal
+                ChannelReceivers loadedReceivers = new ChannelReceivers(loadedLocations == null ? new HashSet<>() : loadedLocations);
+                cacheReceivers(channelKey, loadedReceivers);
+
+                //the channel changed while loading, a newer state of this tick wins
+                ChannelState waitingState = waitingChannelStates.remove(channelKey);
+                if (waitingState != null) {
+                    pendingChannelStates.putIfAbsent(channelKey, waitingState);
+                }
+
+                return loadedReceivers;
+            }, Bukkit.getScheduler().getMainThreadExecutor(GreenBook.inst()));
+
+            loadingChannels.put(channelKey, loadingFuture);
+        }
+
+        return loadingFuture;
+    }
+
+    /**
+     * cache the receivers of a channel. Receivers of loaded chunks, that storage didn't know about, get added and saved
+     * @param channelKey owner and channel the receivers belong to
+     * @param receivers receivers loaded from storage
+     */
+    private void cacheReceivers(@NotNull ChannelKey channelKey, @NotNull ChannelReceivers receivers) {
+        knownReceivers.put(channelKey, receivers);
+
+        HashSet<Location> hints = chunkReceiverHints.remove(channelKey);
+        if (hints != null) {
+            List<Location> restoredLocations = new ArrayList<>();
+
+            for (Location location : hints) {
+                if (receivers.add(location)) {
+                    restoredLocations.add(location);
+                }
+            }
+
+            if (!restoredLocations.isEmpty()) {
+                GreenLogger.log(Level.INFO, "restored " + restoredLocations.size() + " receivers of wireless channel " + channelKey.getDisplayName() + " from chunk data.");
+                WireLessConfig.inst().addReceiverLocations(channelKey, restoredLocations);
+            }
+        }
+    }
+
+    /**
+     * add a receiver to the known ones and save it.
+     * The receivers of the channel get loaded first, so a receiver that is already known doesn't get saved again.
+     * @param receiverLocation the location of the receiver sign
+     * @param channelKey owner and channel the receiver belongs to
+     */
+    private void addReceiver(@NotNull Location receiverLocation, @NotNull ChannelKey channelKey) {
+        final Location blockLocation = receiverLocation.toBlockLocation();
+        ChunkReceiverData.add(channelKey, blockLocation);
+
+        //count the receiver right away, while the receivers of the channel might still get loaded.
+        //saving it reserves it again, until the store has it
+        ReceiverCounts receiverCounts = WireLessConfig.inst().getReceiverCounts();
+        receiverCounts.reserve(channelKey, 1);
+
+        getReceivers(channelKey).thenAccept(receivers -> {
+            if (receivers.add(blockLocation)) {
+                WireLessConfig.inst().addReceiverLocation(channelKey, blockLocation);
+            }
+        }).whenComplete((ignored, throwable) -> receiverCounts.release(channelKey, 1));
+    }
+
+    /**
+     * add a transmitter to the known ones
+     * @param transmitterBlock the block of the transmitter sign
+     * @param channelKey owner and channel the transmitter sends on
+     * @param analog true, if the transmitter sends the full signal strength, instead of just on or off
+     */
+    private void addTransmitter(@NotNull Block transmitterBlock, @NotNull ChannelKey channelKey, boolean analog) {
+        knownTransmitters.computeIfAbsent(transmitterBlock.getWorld().getUID(), k -> new LongHashMap<>()).
+                computeIfAbsent(Chunk.getChunkKey(transmitterBlock.getX() >> 4, transmitterBlock.getZ() >> 4), k -> new LongHashMap<>()).
+                put(transmitterBlock.getBlockKey(), new Transmitter(channelKey, analog));
+    }
+
+    /**
+     * get the known transmitters of the chunk a block is in
+     * @param block block in the chunk
+     * @return the transmitters of the chunk by their block key or null, if the chunk has none
+     */
+    private @Nullable LongHashMap<Transmitter> getChunkTransmitters(@NotNull Block block) {
+        LongHashMap<LongHashMap<Transmitter>> chunks = knownTransmitters.get(block.getWorld().getUID());
+
+        return chunks == null ? null : chunks.get(Chunk.getChunkKey(block.getX() >> 4, block.getZ() >> 4));
+    }
+
+    /**
+     * remove a transmitter from the known ones, does nothing if the block was no known transmitter
+     * @param block the block that might have been a transmitter sign
+     */
+    private void removeTransmitter(@NotNull Block block) {
+        LongHashMap<Transmitter> transmitters = getChunkTransmitters(block);
+
+        if (transmitters != null) {
+            transmitters.remove(block.getBlockKey());
+        }
+    }
+
+    /**
+     * get a known transmitter, without getting its block state
+     * @param block block to test
+     * @return the transmitter sign registered at this position or null, if there is none
+     */
+    private @Nullable Transmitter getTransmitter(@NotNull Block block) {
+        LongHashMap<Transmitter> transmitters = getChunkTransmitters(block);
+
+        return transmitters == null ? null : transmitters.get(block.getBlockKey());
+    }
+
+    /**
+     * get the validated receivers of the chunk a position is in
+     * @param worldUUID uuid of the world
+     * @param blockKey position in the chunk, packed via {@link Block#getBlockKey(int, int, int)}
+     * @return the receiver descriptors of the chunk by their block key or null, if the chunk has none
+     */
+    private @Nullable LongHashMap<ReceiverDescriptor> getChunkReceiverDescriptors(@NotNull UUID worldUUID, long blockKey) {
+        LongHashMap<LongHashMap<ReceiverDescriptor>> chunks = knownReceiverDescriptors.get(worldUUID);
+
+        return chunks == null ? null : chunks.get(Chunk.getChunkKey(Block.getBlockKeyX(blockKey) >> 4, Block.getBlockKeyZ(blockKey) >> 4));
+    }
+
+    /**
+     * get the descriptor of a receiver sign, validating and caching it if needed.
+     * Only the type of the block is checked for a cached descriptor, everything else only gets read again,
+     * once the sign might have changed.
+     * @param world world of the receiver
+     * @param blockKey position of the receiver sign, packed via {@link Block#getBlockKey(int, int, int)}
+     * @param fallbackOwner owner to assume, if the sign doesn't know its owner (legacy signs)
+     * @return the descriptor of the receiver or null, if the block is no (longer a) receiver sign
+     */
+    private @Nullable ReceiverDescriptor getReceiverDescriptor(@NotNull World world, long blockKey, @Nullable UUID fallbackOwner) {
+        LongHashMap<ReceiverDescriptor> descriptors = getChunkReceiverDescriptors(world.getUID(), blockKey);
+        ReceiverDescriptor descriptor = descriptors == null ? null : descriptors.get(blockKey);
+
+        if (descriptor != null) {
+            //the sign might have been replaced without any event we listen to
+            if (Tag.WALL_SIGNS.isTagged(world.getType(Block.getBlockKeyX(blockKey), Block.getBlockKeyY(blockKey), Block.getBlockKeyZ(blockKey)))) {
+                return descriptor;
             }
+
+            descriptors.remove(blockKey);
+            return null;
+        }
+
+        // test if receiver is a wall sign and the second line is stating the sign is a receiver
+        Block receiverBlock = world.getBlockAtKey(blockKey);
+        if (receiverBlock.getBlockData() instanceof WallSign wallSign &&
+                receiverBlock.getState() instanceof Sign receiverSign && isReceiver(receiverSign)) {
+            BlockFace facing = wallSign.getFacing();
+            descriptor = new ReceiverDescriptor(getChannelKey(receiverSign, fallbackOwner), facing, receiverBlock.getRelative(facing.getOppositeFace(), 2));
+
+            knownReceiverDescriptors.computeIfAbsent(world.getUID(), k -> new LongHashMap<>()).
+                    computeIfAbsent(Chunk.getChunkKey(receiverBlock.getX() >> 4, receiverBlock.getZ() >> 4), k -> new LongHashMap<>()).
+                    put(blockKey, descriptor);
+
+            return descriptor;
+        }
+
+        return null;
+    }
+
+    /**
+     * forget the validated receiver at a position, so it gets read again the next time it gets used.
+     * Does nothing if there is no validated receiver
+     * @param worldUUID uuid of the world
+     * @param blockKey position that might be a receiver sign, packed via {@link Block#getBlockKey(int, int, int)}
+     */
+    private void invalidateReceiverDescriptor(@NotNull UUID worldUUID, long blockKey) {
+        LongHashMap<ReceiverDescriptor> descriptors = getChunkReceiverDescriptors(worldUUID, blockKey);
+
+        if (descriptors != null) {
+            descriptors.remove(blockKey);
         }
     }
+
+    /**
+     * forget the validated receiver at a block, so it gets read again the next time it gets used.
+     * Does nothing if there is no validated receiver
+     * @param block block that might be a receiver sign
+     */
+    private void invalidateReceiverDescriptor(@NotNull Block block) {
+        invalidateReceiverDescriptor(block.getWorld().getUID(), block.getBlockKey());
+    }
+
+    /**
+     * test if the second line of a sign states it is a transmitter, plain or analog
+     * @param sign sign to test
+     * @return true if the sign is a transmitter
+     */
+    private boolean isTransmitter(@NotNull Sign sign) {
+        Matcher matcher = signPattern.matcher(PlainTextComponentSerializer.plainText().serialize(sign.line(1)).trim());
+
+        // clear line 2 of square brackets []
+        return matcher.matches() && (matcher.group(1).equalsIgnoreCase(Lang.SIGN_TRANSMITTER_ID.get()) ||
+                matcher.group(1).equalsIgnoreCase(Lang.SIGN_ANALOG_TRANSMITTER_ID.get()));
+    }
+
+    /**
+     * test if the second line of a sign states it is an analog transmitter, sending the full signal strength
+     * @param sign sign to test
+     * @return true if the sign is an analog transmitter
+     */
+    private boolean isAnalogTransmitter(@NotNull Sign sign) {
+        Matcher matcher = signPattern.matcher(PlainTextComponentSerializer.plainText().serialize(sign.line(1)).trim());
+
+        // clear line 2 of square brackets []
+        return matcher.matches() && matcher.group(1).equalsIgnoreCase(Lang.SIGN_ANALOG_TRANSMITTER_ID.get());
+    }
+
+    /**
+     * test if the second line of a sign states it is a receiver
+     * @param sign sign to test
+     * @return true if the sign is a receiver
+     */
+    private boolean isReceiver(@NotNull Sign sign) {
+        Matcher matcher = signPattern.matcher(PlainTextComponentSerializer.plainText().serialize(sign.line(1)).trim());
+
+        // clear line 2 of square brackets []
+        return matcher.matches() && matcher.group(1).equalsIgnoreCase(Lang.SIGN_RECEIVER_ID.get());
+    }
+
+    /**
+     * if a transmitter sign gets powered it schedules all the receiver signs of the same channel to turn on (or off if unpowered)
+     * at the end of this tick. Analog transmitters schedule every change of their signal strength instead
+     */
+    @EventHandler(ignoreCancelled = true)
+    private void onSignPowered(BlockPhysicsEvent event) {
+        Block eBlock = event.getBlock();
+
+        //fast exit for the (by far) most physics events, that are not about a transmitter
+        Transmitter transmitter = getTransmitter(eBlock);
+        if (transmitter == null) {
+            return;
+        }
+
+        //the time spent on a transmitter counts for its channel
+        if (costTracker.isEnabled()) {
+            final long startTime = System.nanoTime();
+            updateTransmitter(eBlock, transmitter);
+            costTracker.add(transmitter.channelKey, 0, 0, startTime, System.nanoTime());
+        } else {
+            updateTransmitter(eBlock, transmitter);
+        }
+    }
+
+    /**
+     * a known transmitter got a physics update, remember the new state of its channel if its power changed.
+     * Plain transmitters only know on (full signal strength) and off, so a signal getting weaker or stronger doesn't change anything
+     * @param eBlock block of the transmitter
+     * @param transmitter the transmitter
+     */
+    private void updateTransmitter(@NotNull Block eBlock, @NotNull Transmitter transmitter) {
+        if (!Tag.SIGNS.isTagged(eBlock.getType())) {
+            //the sign was destroyed without us noticing
+            removeTransmitter(eBlock);
+            return;
+        }
+
+        // test if the power-level has changed from off to on or reverse, or for analog transmitters to any other strength.
+        // this is an imported check, for not only makes it all the following checks and updates obsolete,
+        // but also reading the component lines form a sign is not fast enough to compete against a redstone wire signal
+        // and didn't include all lines anymore.
+        int blockPower = eBlock.getBlockPower();
+        int signalStrengthNow = transmitter.analog ? Math.min(blockPower, MAX_SIGNAL_STRENGTH) : (blockPower > 0 ? MAX_SIGNAL_STRENGTH : 0);
+        if (transmitter.lastSignalStrength == null || (transmitter.lastSignalStrength != signalStrengthNow)) {
+            boolean firstUpdate = transmitter.lastSignalStrength == null;
+            transmitter.lastSignalStrength = signalStrengthNow;
+
+            //a freshly indexed transmitter doesn't know its last state. If its channel is already in the same state
+            //(even from before a restart), nothing changed and the receivers don't need an update
+            if (firstUpdate && Integer.valueOf(signalStrengthNow).equals(lastChannelStates.get(transmitter.channelKey)) &&
+                    !pendingChannelStates.containsKey(transmitter.channelKey)) {
+                return;
+            }
+
+            //overwrites every state this channel was set to earlier this tick
+            if (propagatingChannel == null) {
+                pendingChannelStates.put(transmitter.channelKey, ChannelState.of(signalStrengthNow));
+            } else {
+                //powered by a receiver, extend the chain of the channel the receiver belongs to
+                List<ChannelKey> channelKeys = new ArrayList<>();
+                List<Location> transmitterLocations = new ArrayList<>();
+                if (propagatingCause != null) {
+                    channelKeys.addAll(propagatingCause.channelKeys());
+                    transmitterLocations.addAll(propagatingCause.transmitterLocations());
+                }
+                channelKeys.add(propagatingChannel);
+                transmitterLocations.add(eBlock.getLocation());
+
+                pendingChannelStates.put(transmitter.channelKey, new ChannelState(signalStrengthNow, new PropagationCause(channelKeys, transmitterLocations)));
+            }
+
+            if (debounceTicks > 0) {
+                channelChangeTicks.put(transmitter.channelKey, Bukkit.getCurrentTick());
+            }
+        }
+    }
+
+    /**
+     * a freshly loaded chunk, whose receivers missed changes of their channels while it was unloaded
+     * @param world world of the chunk
+     * @param chunkKey key of the chunk
+     * @param channelKeys channels that changed
+     */
+    private record ChunkChannels(@NotNull World world, long chunkKey, @NotNull HashSet<ChannelKey> channelKeys) {
+    }
+
+    /**
+     * remember that a channel changed, while some of its receivers are in an unloaded chunk
+     * @param world world of the chunk
+     * @param chunkKey key of the chunk
+     * @param channelKey channel that changed
+     */
+    private void addUnloadedChunkChannel(@NotNull World world, long chunkKey, @NotNull ChannelKey channelKey) {
+        unloadedChunkChannels.computeIfAbsent(world, k -> new LongHashMap<>()).computeIfAbsent(chunkKey, k -> new HashSet<>()).add(channelKey);
+    }
+
+    /**
+     * apply the final state of every channel that changed this tick to its receivers.
+     * The receivers are grouped by chunk, so every chunk gets checked only once if it is loaded.
+     * Receivers in unloaded chunks get caught up with once their chunk loads.
+     */
+    @EventHandler
+    private void onTickEnd(ServerTickEndEvent event) {
+        //reports older than their interval don't suppress anything anymore
+        if (event.getTickNumber() % PROPAGATION_REPORT_INTERVAL_TICKS == 0) {
+            pruneReportedPropagations(event.getTickNumber());
+            signalLimiter.pruneReports(event.getTickNumber());
+        }
+
+        //hot channels, used within the last pin ticks, stay cached by themselves.
+        //channels with a state still to send are pinned as well, their receivers are needed soon
+        if (event.getTickNumber() % CACHE_EVICTION_INTERVAL_TICKS == 0) {
+            List<ChannelKey> evictedChannels = knownReceivers.evict(this::hasUnsentState);
+
+            if (!evictedChannels.isEmpty()) {
+                WireLessConfig.inst().forceStoreRead(evictedChannels);
+            }
+        }
+
+        //scan some of the queued chunks for receivers, all the others have to wait for the next tick
+        if (chunkScanQueue.size() > 0) {
+            chunkScanQueue.drain(scanNanosPerTick, this::scanChunkForReceivers);
+            saveScannedReceivers();
+        }
+
+        if (pendingChannelStates.isEmpty() && loadedChunkChannels.isEmpty() && heldChannelStates.isEmpty()) {
+            return;
+        }
+
+        //swap the pending states, updating levers might cause transmitters to schedule new states,
+        //they will get applied at the end of the next tick, like a repeater would do.
+        //states that where held back come first, a new state of the same channel overwrites them
+        LinkedHashMap<ChannelKey, ChannelState> channelStates = heldChannelStates;
+        channelStates.putAll(pendingChannelStates);
+        heldChannelStates = new LinkedHashMap<>();
+        pendingChannelStates = new LinkedHashMap<>();
+
+        final int currentTick = Bukkit.getCurrentTick();
+        channelStates.forEach((channelKey, channelState) -> {
+            PropagationCause cause = channelState.cause();
+            if (cause != null && cause.depth() > maxPropagationDepth) {
+                //caused by too many channels in a row, most likely a feedback loop
+                //its receivers keep their last state, sending it again would only continue the loop
+                reportPropagation(channelKey, cause, currentTick, "cut off wireless channel chain, longer than " + maxPropagationDepth +
+                        " channels. The receivers of the last channel keep their old state: ");
+                return;
+            }
+
+            if (debounceTicks > 0) {
+                Integer changeTick = channelChangeTicks.get(channelKey);
+
+                if (changeTick != null && currentTick - changeTick < debounceTicks) {
+                    //didn't settle yet
+                    heldChannelStates.put(channelKey, channelState);
+                    return;
+                }
+                channelChangeTicks.remove(channelKey);
+            }
+
+            CompletableFuture<ChannelReceivers> receiversFuture = getReceivers(channelKey);
+
+            if (!receiversFuture.isDone()) {
+                //don't wait for the disk, the state will get applied once the receivers are loaded
+                waitingChannelStates.put(channelKey, channelState);
+                return;
+            }
+
+            if (receiversFuture.isCompletedExceptionally()) {
+                //loading failed, was already logged
+                return;
+            }
+
+            if (!signalLimiter.tryAcquire(channelKey, currentTick)) {
+                //sending too fast, try again next tick. Only the newest state will get sent
+                heldChannelStates.put(channelKey, channelState);
+                return;
+            }
+
+            if (cause != null && cause.channelKeys().contains(channelKey)) {
+                reportPropagation(channelKey, cause, currentTick, "wireless feedback loop: ");
+            }
+
+            final int signalStrength = channelState.signalStrength();
+            lastChannelStates.put(channelKey, signalStrength);
+            if (cause == null) {
+                lastChannelCauses.remove(channelKey);
+            } else {
+                lastChannelCauses.put(channelKey, cause);
+            }
+
+            final long startTime = costTracker.isEnabled() ? System.nanoTime() : 0;
+            int updatedReceivers;
+            propagatingChannel = channelKey;
+            propagatingCause = cause;
+            try {
+                updatedReceivers = receiversFuture.join().forEachChunk(
+                        (world, blockKey) -> updateReceiver(world, blockKey, channelKey, signalStrength),
+                        (world, chunkKey) -> addUnloadedChunkChannel(world, chunkKey, channelKey));
+            } finally {
+                propagatingChannel = null;
+                propagatingCause = null;
+            }
+
+            if (costTracker.isEnabled()) {
+                costTracker.add(channelKey, 1, updatedReceivers, startTime, System.nanoTime());
+            }
+        });
+
+        //catch up the receivers of chunks that loaded this tick, with the newest state of their channels
+        ArrayList<ChunkChannels> chunkChannelsToUpdate = loadedChunkChannels;
+        loadedChunkChannels = new ArrayList<>();
+        for (ChunkChannels chunkChannels : chunkChannelsToUpdate) {
+            final World world = chunkChannels.world();
+            final long chunkKey = chunkChannels.chunkKey();
+
+            for (ChannelKey channelKey : chunkChannels.channelKeys()) {
+                // the chunk might have unloaded again, the chunk key holds x in the lower and z in the upper 32 bits
+                if (!world.isChunkLoaded((int) chunkKey, (int) (chunkKey >> 32))) {
+                    addUnloadedChunkChannel(world, chunkKey, channelKey);
+                    continue;
+                }
+
+                CompletableFuture<ChannelReceivers> receiversFuture = getReceivers(channelKey);
+                if (!receiversFuture.isDone()) {
+                    //try again next tick
+                    loadedChunkChannels.add(new ChunkChannels(world, chunkKey, new HashSet<>(Set.of(channelKey))));
+                    continue;
+                }
+
+                Integer signalStrength = lastChannelStates.get(channelKey);
+                if (signalStrength != null && !receiversFuture.isCompletedExceptionally()) {
+                    final long startTime = costTracker.isEnabled() ? System.nanoTime() : 0;
+                    int updatedReceivers;
+                    //the same chain, that caused the state in the first place
+                    propagatingChannel = channelKey;
+                    propagatingCause = lastChannelCauses.get(channelKey);
+                    try {
+                        updatedReceivers = receiversFuture.join().forEachInChunk(world, chunkKey,
+                                (receiverWorld, blockKey) -> updateReceiver(receiverWorld, blockKey, channelKey, signalStrength));
+                    } finally {
+                        propagatingChannel = null;
+                        propagatingCause = null;
+                    }
+
+                    if (costTracker.isEnabled()) {
+                        costTracker.add(channelKey, 0, updatedReceivers, startTime, System.nanoTime());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * log a chain of channels, that triggered each other, if the channel wasn't reported recently.
+     * Otherwise it gets counted and included in the next report of the channel
+     * @param channelKey the channel at the end of the chain
+     * @param cause the chain of channels that caused the channel to change
+     * @param currentTick the current server tick
+     * @param prefix what happened
+     */
+    private void reportPropagation(@NotNull ChannelKey channelKey, @NotNull PropagationCause cause, int currentTick, @NotNull String prefix) {
+        Integer lastReportTick = lastPropagationReportTicks.get(channelKey);
+        if (lastReportTick != null && currentTick - lastReportTick < PROPAGATION_REPORT_INTERVAL_TICKS) {
+            suppressedPropagationReports.merge(channelKey, 1, Integer::sum);
+            return;
+        }
+        lastPropagationReportTicks.put(channelKey, currentTick);
+        Integer suppressedReports = suppressedPropagationReports.remove(channelKey);
+
+        StringBuilder chain = new StringBuilder(prefix);
+        for (int i = 0; i < cause.depth(); i++) {
+            Location transmitterLocation = cause.transmitterLocations().get(i);
+
+            chain.append(cause.channelKeys().get(i).getDisplayName()).append(" -> transmitter at ").
+                    append(transmitterLocation.getWorld().getName()).append(" ").
+                    append(transmitterLocation.getBlockX()).append(", ").
+                    append(transmitterLocation.getBlockY()).append(", ").
+                    append(transmitterLocation.getBlockZ()).append(" -> ");
+        }
+        chain.append(channelKey.getDisplayName());
+        if (suppressedReports != null) {
+            chain.append(" (happened ").append(suppressedReports).append(" more times since the last report of this channel)");
+        }
+
+        GreenLogger.log(Level.WARNING, chain.toString());
+    }
+
+    /**
+     * forget the channels that weren't reported within the report interval, so the report ticks don't grow forever.
+     * Reports suppressed since then get logged as a summary, otherwise they would get lost
+     * @param currentTick the current server tick
+     */
+    private void pruneReportedPropagations(int currentTick) {
+        Iterator<Map.Entry<ChannelKey, Integer>> iterator = lastPropagationReportTicks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<ChannelKey, Integer> entry = iterator.next();
+
+            if (currentTick - entry.getValue() >= PROPAGATION_REPORT_INTERVAL_TICKS) {
+                iterator.remove();
+                Integer suppressedReports = suppressedPropagationReports.remove(entry.getKey());
+
+                if (suppressedReports != null) {
+                    GreenLogger.log(Level.WARNING, "wireless channel " + entry.getKey().getDisplayName() + " was part of a feedback loop or cut off chain " +
+                            suppressedReports + " more times since its last report.");
+                }
+            }
+        }
+    }
+
+    /**
+     * remove a receiver from the cache of its channel and from storage
+     * @param receiverLocation the location of the receiver sign
+     * @param channelKey owner and channel the receiver belonged to
+     */
+    private void removeReceiver(@NotNull Location receiverLocation, @NotNull ChannelKey channelKey) {
+        ChannelReceivers receivers = knownReceivers.peek(channelKey);
+        invalidateReceiverDescriptor(receiverLocation.getWorld().getUID(),
+                Block.getBlockKey(receiverLocation.getBlockX(), receiverLocation.getBlockY(), receiverLocation.getBlockZ()));
+        ChunkReceiverData.remove(channelKey, receiverLocation);
+
+        if (receivers != null) {
+            if (receivers.remove(receiverLocation)) {
+                WireLessConfig.inst().removeReceiverLocation(channelKey, receiverLocation);
+            }
+        } else {
+            //only save the removal, if the receiver was saved at all
+            final Location blockLocation = receiverLocation.toBlockLocation();
+
+            getReceivers(channelKey).thenAccept(loadedReceivers -> {
+                if (loadedReceivers.remove(blockLocation)) {
+                    WireLessConfig.inst().removeReceiverLocation(channelKey, blockLocation);
+                }
+            });
+        }
+    }
+
+    /**
+     * forget a block as transmitter and receiver right away, because it gets destroyed or changed.
+     * This way no signal has to find out about it, and saved receivers don't pile up dead entries.
+     * @param block block that might be a wireless sign
+     */
+    private void forgetWirelessSign(@NotNull Block block) {
+        removeTransmitter(block);
+        invalidateReceiverDescriptor(block);
+
+        //only signs are worth getting the block state of
+        if (Tag.WALL_SIGNS.isTagged(block.getType()) && block.getState() instanceof Sign sign && isReceiver(sign)) {
+            removeReceiver(block.getLocation(), getReceiverChannelKey(sign));
+        }
+    }
+
+    /**
+     * update the power of a receiver in a loaded chunk.
+     * If the receiver turns out to be destroyed or changed, it gets removed from its channel.
+     * @param world world of the receiver
+     * @param blockKey position of the receiver sign, packed via {@link Block#getBlockKey(int, int, int)}
+     * @param channelKey owner and channel the receiver was saved in
+     * @param signalStrength the signal strength of the channel, 0 to 15
+     */
+    private void updateReceiver(@NotNull World world, long blockKey, @NotNull ChannelKey channelKey, int signalStrength) {
+        // test if the block is still a receiver sign, receivers without owner belong to the channel they were saved in
+        ReceiverDescriptor descriptor = getReceiverDescriptor(world, blockKey, channelKey.getOwner());
+        if (descriptor != null) {
+            // sign is a receiver, check owner and channel.
+            ChannelKey receiverChannel = descriptor.channelKey;
+            if (receiverChannel.equals(channelKey)) {
+                updateReceiverOutput(descriptor, signalStrength);
+            } else {
+                // update channel, should never occur, but fixing it anyway
+                Location receiverLocation = new Location(world, Block.getBlockKeyX(blockKey), Block.getBlockKeyY(blockKey), Block.getBlockKeyZ(blockKey));
+                removeReceiver(receiverLocation, channelKey);
+                addReceiver(receiverLocation, receiverChannel);
+            }
+        } else {
+            // remove from list
+            removeReceiver(new Location(world, Block.getBlockKeyX(blockKey), Block.getBlockKeyY(blockKey), Block.getBlockKeyZ(blockKey)), channelKey);
+        }
+    }
+
+    /**
+     * set the output of a receiver to a signal strength, if it isn't already in the right state.
+     * A lever turns on for any signal strength above 0. A lectern turns to the page, and a composter fills to the level,
+     * a comparator reads as the signal strength, as far as they can show it.
+     * A lectern can't output less than 1, so 0 turns to its first page as well.
+     * Its page only gets set if the signal strength changed since the last time, a page turned by hand stays until then.
+     * @param descriptor the receiver with the block its lever, lectern or composter should be
+     * @param signalStrength the signal strength of the channel, 0 to 15
+     */
+    private void updateReceiverOutput(@NotNull ReceiverDescriptor descriptor, int signalStrength) {
+        Block outputBlock = descriptor.outputBlock;
+        BlockData outputData = outputBlock.getBlockData();
+
+        if (outputData instanceof Switch leverData) {
+            boolean power = signalStrength > 0;
+
+            if (leverData.isPowered() != power) {
+                leverData.setPowered(power);
+                outputBlock.setBlockData(leverData);
+            }
+        } else if (outputData instanceof Levelled levelledData && outputBlock.getType() == Material.COMPOSTER) {
+            int level = Math.round(signalStrength * levelledData.getMaximumLevel() / (float) MAX_SIGNAL_STRENGTH);
+
+            if (levelledData.getLevel() != level) {
+                levelledData.setLevel(level);
+                outputBlock.setBlockData(levelledData);
+            }
+        } else if (outputData instanceof org.bukkit.block.data.type.Lectern lecternData) {
+            if (!lecternData.hasBook()) {
+                //a new book has to get turned to the page, even if the signal stays the same
+                descriptor.lecternSignalStrength = -1;
+            } else if (descriptor.lecternSignalStrength != signalStrength && outputBlock.getState() instanceof Lectern lectern) {
+                descriptor.lecternSignalStrength = signalStrength;
+
+                //a comparator reads the page relative to the number of pages, 1 on the first and 15 on the last one
+                ItemStack book = lectern.getInventory().getItem(0);
+                int pages = book != null && book.getItemMeta() instanceof BookMeta bookMeta ? bookMeta.getPageCount() : 0;
+
+                if (pages > 1) {
+                    int page = Math.round(Math.max(0, signalStrength - 1) * (pages - 1) / (float) (MAX_SIGNAL_STRENGTH - 1));
+
+                    if (lectern.getPage() != page) {
+                        lectern.setPage(page);
+                        lectern.update();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * set the uuid of the player placing a wireless sign, if player specific channels are used
+     * @param event the event of the sign getting placed
+     * @param changedSign the sign that was changed
+     * @return the channel key of the new sign
+     */
+    private @NotNull ChannelKey setOwner(@NotNull SignChangeEvent event, @NotNull Sign changedSign) {
+        ChannelKey channelKey = getNewChannelKey(event);
+
+        if (channelKey.getOwner() != null) {
+            changedSign.getPersistentDataContainer().set(CHANNEL_UUID_KEY, PersistentDataType.STRING, channelKey.getOwner().toString());
+            //the state is just a snapshot, write it back, or the owner will get lost.
+            //the new lines of the event will get applied after this
+            changedSign.update();
+        }
+
+        return channelKey;
+    }
+
+    /**
+     * break a sign that can't be placed and drop it
+     * @param block block of the sign
+     */
+    private void breakSign(@NotNull Block block) {
+        //get the drops while it's still a sign
+        Collection<ItemStack> drops = block.getDrops();
+        block.setType(Material.AIR);
+
+        for (ItemStack signItem : drops) {
+            block.getWorld().dropItemNaturally(block.getLocation(), signItem);
+        }
+    }
+
+    /**
+     * get the owner and channel a sign will have, once the lines of the event got applied
+     * @param event the sign change
+     * @return owner and channel of the new lines, the player is the owner if player specific channels are used
+     */
+    private @NotNull ChannelKey getNewChannelKey(@NotNull SignChangeEvent event) {
+        UUID owner = usePlayerSpecificChannels ? event.getPlayer().getUniqueId() : null;
+
+        Component channel = event.line(2);
+        return ChannelKey.of(owner, channel == null ? "" : PlainTextComponentSerializer.plainText().serialize(channel));
+    }
+
+    /**
+     * check if a player may place a new receiver on a channel. Global channels only have the limit per channel.
+     * @param player the player placing the receiver
+     * @param channelKey owner and channel of the new receiver
+     * @param oldChannelKey owner and channel the receiver leaves, if an existing receiver gets edited onto another channel
+     * @return the message why the receiver isn't allowed, or null if no quota would be exceeded
+     */
+    private @Nullable Component checkReceiverQuota(@NotNull Player player, @NotNull ChannelKey channelKey, @Nullable ChannelKey oldChannelKey) {
+        if (PermissionUtils.hasPermission(player, PermissionUtils.GREENBOOK_WIRELESS_QUOTA_BYPASS)) {
+            return null;
+        }
+
+        ReceiverCounts counts = WireLessConfig.inst().getReceiverCounts();
+        int channelReceivers = counts.getReceivers(channelKey);
+
+        int max = getQuota(player, PermissionUtils.GREENBOOK_WIRELESS_QUOTA_CHANNEL_RECEIVERS, maxReceiversPerChannel);
+        if (max > 0 && channelReceivers >= max) {
+            return Lang.build(Lang.WIRELESS_QUOTA_CHANNEL_RECEIVERS.get().replace(Lang.VALUE, String.valueOf(channelReceivers)));
+        }
+
+        UUID owner = channelKey.getOwner();
+        if (owner != null) {
+            int ownerReceivers = counts.getOwnerReceivers(owner);
+            int ownerChannels = counts.getOwnerChannels(owner);
+
+            //a receiver moving between channels of the same owner doesn't add to the owner, it might even free its old channel
+            if (oldChannelKey != null && owner.equals(oldChannelKey.getOwner())) {
+                int oldChannelReceivers = counts.getReceivers(oldChannelKey);
+
+                if (oldChannelReceivers > 0) {
+                    ownerReceivers--;
+
+                    if (oldChannelReceivers == 1) {
+                        ownerChannels--;
+                    }
+                }
+            }
+
+            max = getQuota(player, PermissionUtils.GREENBOOK_WIRELESS_QUOTA_RECEIVERS, maxReceiversPerOwner);
+            if (max > 0 && ownerReceivers >= max) {
+                return Lang.build(Lang.WIRELESS_QUOTA_RECEIVERS.get().replace(Lang.VALUE, String.valueOf(ownerReceivers)));
+            }
+
+            //only a receiver on a new channel adds a channel
+            max = getQuota(player, PermissionUtils.GREENBOOK_WIRELESS_QUOTA_CHANNELS, maxChannelsPerOwner);
+            if (max > 0 && channelReceivers == 0 && ownerChannels >= max) {
+                return Lang.build(Lang.WIRELESS_QUOTA_CHANNELS.get().replace(Lang.VALUE, String.valueOf(ownerChannels)));
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param player the player to get the quota of
+     * @param permissionPrefix permissions that raise the quota, followed by the new limit
+     * @param configuredQuota the quota of the config, 0 means unlimited
+     * @return the quota of the player, 0 means unlimited
+     */
+    private static int getQuota(@NotNull Player player, @NotNull PermissionUtils permissionPrefix, int configuredQuota) {
+        if (configuredQuota <= 0) {
+            return 0;
+        }
+
+        return PermissionUtils.getHighestNumber(player, permissionPrefix, configuredQuota);
+    }
+
+    //todo feedback message + sign destroy if no permission
+    //todo add player name on last line to indicate owner visually
+
+    /**
+     * if a reciver gets placed, safe its location to file and cache it
+     */
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    private void onSignPlace(SignChangeEvent event) {
+        PlainTextComponentSerializer plainSerializer = PlainTextComponentSerializer.plainText();
+        Component line2Comp = event.line(1);
+        Sign changedSign = (Sign) event.getBlock().getState();
+
+        //the sign still has its old lines, a re-edited receiver leaves its old channel once the edit got accepted
+        ChannelKey oldReceiverKey = null;
+        if (Tag.WALL_SIGNS.isTagged(event.getBlock().getType()) && isReceiver(changedSign)) {
+            oldReceiverKey = getReceiverChannelKey(changedSign);
+        }
+
+        String line2Str = null;
+        if (line2Comp != null) {
+            Matcher matcher = signPattern.matcher(plainSerializer.serialize(line2Comp).trim());
+
+            //clear line 2 of square brackets []
+            if (matcher.matches()) {
+                line2Str = matcher.group(1);
+            }
+        }
+
+        if (line2Str != null && line2Str.equalsIgnoreCase(Lang.SIGN_RECEIVER_ID.get())) {
+            //a receiver that keeps its channel doesn't add anything, its removal might not be saved yet
+            ChannelKey newReceiverKey = getNewChannelKey(event);
+            Component quotaMessage = newReceiverKey.equals(oldReceiverKey) ? null : checkReceiverQuota(event.getPlayer(), newReceiverKey, oldReceiverKey);
+
+            if (quotaMessage != null) {
+                event.getPlayer().sendMessage(quotaMessage);
+
+                //an edited wireless sign keeps what it was, everything else breaks
+                if (oldReceiverKey != null || isTransmitter(changedSign)) {
+                    event.setCancelled(true);
+                } else {
+                    breakSign(event.getBlock());
+                }
+                return;
+            }
+        }
+
+        //the edit got accepted
+        if (oldReceiverKey != null) {
+            removeReceiver(event.getBlock().getLocation(), oldReceiverKey);
+        }
+
+        if (line2Str != null) {
+            if (line2Str.equalsIgnoreCase(Lang.SIGN_RECEIVER_ID.get())) {
+                if (Tag.WALL_SIGNS.isTagged(event.getBlock().getType())) {
+                    //set the name of the ic
+                    event.line(0, Lang.build(Lang.SIGN_RECEIVER_NAME.get()));
+
+                    //cache and save the new receiver
+                    this.addReceiver(event.getBlock().getLocation(), setOwner(event, changedSign));
+                } else {
+                    event.getPlayer().sendMessage(Lang.build(Lang.NO_WALLSIGN.get()));
+                    breakSign(event.getBlock());
+                }
+            } else if (line2Str.equalsIgnoreCase(Lang.SIGN_TRANSMITTER_ID.get())) {
+                //set the name of the ic
+                event.line(0, Lang.build(Lang.SIGN_TRANSMITTER_NAME.get()));
+
+                //remember the transmitter, so physics events know about it
+                addTransmitter(event.getBlock(), setOwner(event, changedSign), false);
+                return;
+            } else if (line2Str.equalsIgnoreCase(Lang.SIGN_ANALOG_TRANSMITTER_ID.get())) {
+                //set the name of the ic
+                event.line(0, Lang.build(Lang.SIGN_ANALOG_TRANSMITTER_NAME.get()));
+
+                //remember the transmitter, so physics events know about it
+                addTransmitter(event.getBlock(), setOwner(event, changedSign), true);
+                return;
+            }
+        }
+
+        //the sign might have been a transmitter before it got edited
+        removeTransmitter(event.getBlock());
+    }
+
+    /**
+     * the lines of a sign might change, so a validated receiver has to get read again
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onSignChange(SignChangeEvent event) {
+        invalidateReceiverDescriptor(event.getBlock());
+    }
+
+    /**
+     * forget about transmitters and receivers that get destroyed
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onBlockBreak(BlockBreakEvent event) {
+        forgetWirelessSign(event.getBlock());
+    }
+
+    /**
+     * forget about transmitters and receivers that get destroyed without a player,
+     * like signs dropping because the block they hang on is gone
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onBlockDestroy(BlockDestroyEvent event) {
+        forgetWirelessSign(event.getBlock());
+    }
+
+    /**
+     * forget about transmitters and receivers that burn
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onBlockBurn(BlockBurnEvent event) {
+        forgetWirelessSign(event.getBlock());
+    }
+
+    /**
+     * forget about transmitters and receivers that get blown up by a block
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onBlockExplode(BlockExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            forgetWirelessSign(block);
+        }
+    }
+
+    /**
+     * forget about transmitters and receivers that get blown up by an entity
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onEntityExplode(EntityExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            forgetWirelessSign(block);
+        }
+    }
+
+    /**
+     * forget about validated receivers at the old and new positions of blocks moved by a piston.
+     * Signs can't get moved, a sign in the way of the moved blocks gets destroyed
+     * @param pistonHead the block the piston head is in, while extended
+     * @param blocks the moved blocks
+     * @param direction the direction they move in
+     */
+    private void forgetMovedBlocks(@NotNull Block pistonHead, @NotNull List<Block> blocks, @NotNull BlockFace direction) {
+        forgetWirelessSign(pistonHead);
+
+        for (Block block : blocks) {
+            invalidateReceiverDescriptor(block);
+            forgetWirelessSign(block.getRelative(direction));
+        }
+    }
+
+    /**
+     * forget about transmitters and receivers that get destroyed or moved by an extending piston
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onPistonExtend(BlockPistonExtendEvent event) {
+        forgetMovedBlocks(event.getBlock().getRelative(event.getDirection()), event.getBlocks(), event.getDirection());
+    }
+
+    /**
+     * forget about validated receivers that get moved by a retracting piston
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onPistonRetract(BlockPistonRetractEvent event) {
+        for (Block block : event.getBlocks()) {
+            invalidateReceiverDescriptor(block);
+            invalidateReceiverDescriptor(block.getRelative(event.getDirection()));
+        }
+    }
+
+    /**
+     * restores the receivers saved in a freshly loaded chunk, catches up receivers that missed a signal while the chunk was unloaded and
+     * iterates through all signs in a freshly loaded chunk to index the transmitters in it.
+     * If the compatibilityMode is turned on, the chunk also gets queued to get scanned for legacy signs
+     * and signs that where deleted from config but not from world
+     * @param event
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onChunkLoad(final ChunkLoadEvent event) {
+        //spawn chunks load before the world load event
+        restoreUnloadedWorldChunkChannels(event.getWorld());
+
+        //receivers that missed a signal get caught up at the end of the tick, all at once
+        LongHashMap<HashSet<ChannelKey>> chunks = unloadedChunkChannels.get(event.getWorld());
+        if (chunks != null) {
+            HashSet<ChannelKey> channelKeys = chunks.remove(event.getChunk().getChunkKey());
+
+            if (channelKeys != null) {
+                loadedChunkChannels.add(new ChunkChannels(event.getWorld(), event.getChunk().getChunkKey(), channelKeys));
+
+                if (chunks.isEmpty()) {
+                    unloadedChunkChannels.remove(event.getWorld());
+                }
+            }
+        }
+
+        //receivers the chunk knows about, but their channel doesn't, get added back.
+        //uncached channels get them once they load, so loading a chunk never has to wait for the disk
+        ChunkReceiverData.read(event.getChunk()).forEach((channelKey, locations) -> {
+            ChannelReceivers receivers = knownReceivers.peek(channelKey);
+
+            if (receivers == null) {
+                chunkReceiverHints.computeIfAbsent(channelKey, k -> new HashSet<>()).addAll(locations);
+            } else {
+                List<Location> restoredLocations = new ArrayList<>();
+
+                for (Location location : locations) {
+                    if (receivers.add(location)) {
+                        restoredLocations.add(location);
+                    }
+                }
+
+                if (!restoredLocations.isEmpty()) {
+                    WireLessConfig.inst().addReceiverLocations(channelKey, restoredLocations);
+                }
+            }
+        });
+
+        //transmitters have to be known right away, or they would miss the next signal
+        for (BlockState state : event.getChunk().getTileEntities(block -> Tag.SIGNS.isTagged(block.getType()), false)) {
+            if (state instanceof Sign sign && isTransmitter(sign)) {
+                addTransmitter(state.getBlock(), getChannelKey(sign, null), isAnalogTransmitter(sign));
+            }
+        }
+
+        if (compatibilityMode) {
+            chunkScanQueue.queue(event.getWorld(), event.getChunk().getChunkKey(), null);
+        }
+    }
+
+    /**
+     * forget the transmitters and their power states, as well as the validated receivers of an unloading chunk,
+     * they will get indexed again once the chunk loads
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onChunkUnload(final ChunkUnloadEvent event) {
+        //receivers of the chunk, that where never needed, will get read again once it loads
+        if (!chunkReceiverHints.isEmpty()) {
+            ChunkReceiverData.read(event.getChunk()).forEach((channelKey, locations) -> {
+                HashSet<Location> hints = chunkReceiverHints.get(channelKey);
+
+                if (hints != null) {
+                    hints.removeAll(locations);
+
+                    if (hints.isEmpty()) {
+                        chunkReceiverHints.remove(channelKey);
+                    }
+                }
+            });
+        }
+
+        LongHashMap<LongHashMap<Transmitter>> chunks = knownTransmitters.get(event.getWorld().getUID());
+        if (chunks != null) {
+            chunks.remove(event.getChunk().getChunkKey());
+        }
+
+        LongHashMap<LongHashMap<ReceiverDescriptor>> descriptorChunks = knownReceiverDescriptors.get(event.getWorld().getUID());
+        if (descriptorChunks != null) {
+            descriptorChunks.remove(event.getChunk().getChunkKey());
+        }
+    }
+
+    /**
+     * move the chunks with receivers to catch up with of a world, that was unloaded, back, since it loaded again
+     * @param world world that loaded
+     */
+    private void restoreUnloadedWorldChunkChannels(@NotNull World world) {
+        if (!unloadedWorldChunkChannels.isEmpty()) {
+            LongHashMap<HashSet<ChannelKey>> chunks = unloadedWorldChunkChannels.remove(world.getUID());
+
+            if (chunks != null) {
+                unloadedChunkChannels.put(world, chunks);
+            }
+        }
+    }
+
+    /**
+     * cached channels never saw the receivers of a world that wasn't loaded.
+     * Channels with receivers in a freshly loaded world get loaded again, the next time they are needed
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onWorldLoad(final WorldLoadEvent event) {
+        final World world = event.getWorld();
+        //the io thread has to know the world, before it looks for its receivers
+        WireLessConfig.inst().updateLoadedWorlds(null);
+        restoreUnloadedWorldChunkChannels(world);
+
+        WireLessConfig.inst().getChannelsOfWorldAsync(world).whenCompleteAsync((channelKeys, throwable) -> {
+            if (throwable != null) {
+                GreenLogger.log(Level.WARNING, "couldn't get the wireless channels of world " + world.getName() + ", clearing the receiver cache instead.", throwable);
+                knownReceivers.clear();
+            } else {
+                for (ChannelKey channelKey : channelKeys) {
+                    knownReceivers.invalidate(channelKey);
+                }
+                WireLessConfig.inst().forceStoreRead(channelKeys);
+            }
+        }, Bukkit.getScheduler().getMainThreadExecutor(GreenBook.inst()));
+    }
+
+    /**
+     * @return true, if one of the locations is in the world
+     */
+    private static boolean containsWorld(@NotNull Collection<Location> locations, @NotNull World world) {
+        for (Location location : locations) {
+            if (location.getWorld() == world) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * forget everything about an unloading world, so it doesn't stay in memory.
+     * Its receivers stay in storage and the chunks still to catch up with are remembered by uuid
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onWorldUnload(final WorldUnloadEvent event) {
+        final World world = event.getWorld();
+
+        knownReceivers.removeWorld(world);
+        WireLessConfig.inst().updateLoadedWorlds(world);
+        WireLessConfig.inst().forgetWorld(world);
+
+        chunkReceiverHints.values().removeIf(hints -> {
+            hints.removeIf(location -> location.getWorld() == world);
+            return hints.isEmpty();
+        });
+        lastChannelCauses.values().removeIf(cause -> containsWorld(cause.transmitterLocations(), world));
+
+        LongHashMap<HashSet<ChannelKey>> chunks = unloadedChunkChannels.remove(world);
+        if (chunks != null) {
+            unloadedWorldChunkChannels.put(world.getUID(), chunks);
+        }
+        //chunks that loaded this tick, and unloaded again with their world
+        for (ChunkChannels chunkChannels : loadedChunkChannels) {
+            if (chunkChannels.world() == world) {
+                for (ChannelKey channelKey : chunkChannels.channelKeys()) {
+                    unloadedWorldChunkChannels.computeIfAbsent(world.getUID(), k -> new LongHashMap<>()).
+                            computeIfAbsent(chunkChannels.chunkKey(), k -> new HashSet<>()).add(channelKey);
+                }
+            }
+        }
+        loadedChunkChannels.removeIf(chunkChannels -> chunkChannels.world() == world);
+
+        chunkScanQueue.removeWorld(world);
+        knownTransmitters.remove(world.getUID());
+        knownReceiverDescriptors.remove(world.getUID());
+    }
 }
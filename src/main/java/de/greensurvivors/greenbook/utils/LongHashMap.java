@@ -0,0 +1,244 @@
+package de.greensurvivors.greenbook.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * map of primitive long keys, like positions packed via Block.getBlockKey() or chunk keys.
+ * Unlike a HashMap&lt;Long, V&gt; no key gets boxed and no entry object gets allocated,
+ * keys and values are stored in two flat arrays (open addressing, linear probing).
+ * Null values are not allowed. Not threadsafe.
+ * @param <V> type of the values
+ */
+public class LongHashMap<V> {
+    //grow, if more than this part of the slots are used
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * action performed for an entry of the map
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, @NotNull V value);
+    }
+
+    private long[] keys;
+    //a slot is free, if its value is null
+    private Object[] values;
+    private int size = 0;
+    //grow once size reaches this
+    private int threshold;
+
+    /**
+     * new empty map
+     */
+    public LongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * new empty map, that can hold the given number of entries without growing
+     * @param expectedSize number of expected entries
+     */
+    public LongHashMap(int expectedSize) {
+        allocate(LongHashSet.capacityFor(expectedSize, LOAD_FACTOR, MIN_CAPACITY));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * @return slot of the key or the free slot where it would get inserted
+     */
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = LongHashSet.mix(key) & mask;
+
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * @param key key to look up
+     * @return the value of the key or null, if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V get(long key) {
+        return (V) values[slotOf(key)];
+    }
+
+    /**
+     * @param key key to test
+     * @return true, if the key has a value
+     */
+    public boolean containsKey(long key) {
+        return values[slotOf(key)] != null;
+    }
+
+    /**
+     * set the value of a key
+     * @param key key to set
+     * @param value new value
+     * @return the old value of the key or null, if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V put(long key, @NotNull V value) {
+        int slot = slotOf(key);
+        V oldValue = (V) values[slot];
+
+        keys[slot] = key;
+        values[slot] = value;
+
+        if (oldValue == null && ++size >= threshold) {
+            rehash(keys.length * 2);
+        }
+
+        return oldValue;
+    }
+
+    /**
+     * get the value of a key, if there is none, a new one gets computed and set
+     * @param key key to look up
+     * @param mappingFunction computes the new value, must not modify this map
+     * @return the (new) value of the key
+     */
+    @SuppressWarnings("unchecked")
+    public @NotNull V computeIfAbsent(long key, @NotNull LongFunction<V> mappingFunction) {
+        int slot = slotOf(key);
+        V value = (V) values[slot];
+
+        if (value == null) {
+            value = mappingFunction.apply(key);
+
+            keys[slot] = key;
+            values[slot] = value;
+
+            if (++size >= threshold) {
+                rehash(keys.length * 2);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * remove a key
+     * @param key key to remove
+     * @return the value of the key or null, if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V remove(long key) {
+        int slot = slotOf(key);
+        V oldValue = (V) values[slot];
+
+        if (oldValue != null) {
+            values[slot] = null;
+            size--;
+            shiftBack(slot);
+        }
+
+        return oldValue;
+    }
+
+    /**
+     * move the entries following a freed slot back, so no entry gets separated from its home slot by a free one
+     * @param freeSlot the slot that just got freed
+     */
+    private void shiftBack(int freeSlot) {
+        int mask = keys.length - 1;
+        int slot = freeSlot;
+
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == null) {
+                return;
+            }
+
+            int homeSlot = LongHashSet.mix(keys[slot]) & mask;
+            //move the entry, if its home slot is not between the free slot and its current one (cyclic)
+            if (((slot - homeSlot) & mask) >= ((slot - freeSlot) & mask)) {
+                keys[freeSlot] = keys[slot];
+                values[freeSlot] = values[slot];
+                values[slot] = null;
+                freeSlot = slot;
+            }
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true, if the map has no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * remove all entries
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * call the action for every entry. The action must not modify this map
+     * @param action action to perform
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(@NotNull EntryConsumer<V> action) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return a new list of all values
+     */
+    @SuppressWarnings("unchecked")
+    public @NotNull List<V> values() {
+        List<V> result = new ArrayList<>(size);
+
+        for (Object value : values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+
+        return result;
+    }
+}
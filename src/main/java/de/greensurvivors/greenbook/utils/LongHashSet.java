@@ -0,0 +1,240 @@
+package de.greensurvivors.greenbook.utils;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * set of primitive longs, like positions packed via Block.getBlockKey().
+ * Unlike a HashSet&lt;Long&gt; no value gets boxed and no entry object gets allocated,
+ * all values are stored in one flat array (open addressing, linear probing).
+ * Not threadsafe.
+ */
+public class LongHashSet {
+    //grow, if more than this part of the slots are used
+    private static final float LOAD_FACTOR = 0.5f;
+    private static final int MIN_CAPACITY = 8;
+    //marks a free slot. The value itself can still be part of the set, see containsFreeValue
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] values;
+    //true, if the value used to mark free slots is part of the set
+    private boolean containsFreeValue = false;
+    private int size = 0;
+    //grow once size reaches this
+    private int threshold;
+
+    /**
+     * new empty set
+     */
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * new empty set, that can hold the given number of values without growing
+     * @param expectedSize number of expected values
+     */
+    public LongHashSet(int expectedSize) {
+        allocate(capacityFor(expectedSize, LOAD_FACTOR, MIN_CAPACITY));
+    }
+
+    /**
+     * @return the smallest power of two, that can hold the expected number of entries
+     */
+    static int capacityFor(int expectedSize, float loadFactor, int minCapacity) {
+        int capacity = minCapacity;
+
+        while (capacity * loadFactor <= expectedSize) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    /**
+     * spread the bits of a key, packed positions differ mostly in few bits
+     */
+    static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+
+        return (int) key;
+    }
+
+    private void allocate(int capacity) {
+        values = new long[capacity];
+        Arrays.fill(values, FREE);
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * @return slot of the value or the free slot where it would get inserted
+     */
+    private int slotOf(long value) {
+        int mask = values.length - 1;
+        int slot = mix(value) & mask;
+
+        while (values[slot] != FREE && values[slot] != value) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * @param value value to test
+     * @return true, if the value is part of this set
+     */
+    public boolean contains(long value) {
+        if (value == FREE) {
+            return containsFreeValue;
+        }
+
+        return values[slotOf(value)] == value;
+    }
+
+    /**
+     * add a value
+     * @param value value to add
+     * @return true, if the value wasn't already part of this set
+     */
+    public boolean add(long value) {
+        if (value == FREE) {
+            if (containsFreeValue) {
+                return false;
+            }
+
+            containsFreeValue = true;
+            size++;
+            return true;
+        }
+
+        int slot = slotOf(value);
+        if (values[slot] == value) {
+            return false;
+        }
+
+        values[slot] = value;
+        if (++size >= threshold) {
+            rehash(values.length * 2);
+        }
+
+        return true;
+    }
+
+    /**
+     * remove a value
+     * @param value value to remove
+     * @return true, if the value was part of this set
+     */
+    public boolean remove(long value) {
+        if (value == FREE) {
+            if (!containsFreeValue) {
+                return false;
+            }
+
+            containsFreeValue = false;
+            size--;
+            return true;
+        }
+
+        int slot = slotOf(value);
+        if (values[slot] != value) {
+            return false;
+        }
+
+        values[slot] = FREE;
+        size--;
+        shiftBack(slot);
+
+        return true;
+    }
+
+    /**
+     * move the values following a freed slot back, so no value gets separated from its home slot by a free one
+     * @param freeSlot the slot that just got freed
+     */
+    private void shiftBack(int freeSlot) {
+        int mask = values.length - 1;
+        int slot = freeSlot;
+
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == FREE) {
+                return;
+            }
+
+            int homeSlot = mix(values[slot]) & mask;
+            //move the value, if its home slot is not between the free slot and its current one (cyclic)
+            if (((slot - homeSlot) & mask) >= ((slot - freeSlot) & mask)) {
+                values[freeSlot] = values[slot];
+                values[slot] = FREE;
+                freeSlot = slot;
+            }
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldValues = values;
+        allocate(newCapacity);
+
+        for (long value : oldValues) {
+            if (value != FREE) {
+                values[slotOf(value)] = value;
+            }
+        }
+    }
+
+    /**
+     * @return number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true, if the set has no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * call the action for every value. The action must not modify this set
+     * @param action action to perform
+     */
+    public void forEach(@NotNull LongConsumer action) {
+        if (containsFreeValue) {
+            action.accept(FREE);
+        }
+
+        for (long value : values) {
+            if (value != FREE) {
+                action.accept(value);
+            }
+        }
+    }
+
+    /**
+     * @return a new array of all values
+     */
+    public long @NotNull [] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+
+        if (containsFreeValue) {
+            result[i++] = FREE;
+        }
+
+        for (long value : values) {
+            if (value != FREE) {
+                result[i++] = value;
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,205 @@
+package de.greensurvivors.greenbook.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * minimal reader of the named binary tag (NBT) format minecraft saves chunks in.
+ * Compounds are read as maps, lists as lists, numbers as their boxed types and strings as strings.
+ * Only what is asked for gets read, everything else gets skipped without being stored.
+ */
+public final class NbtReader {
+    public static final byte
+            TAG_END = 0,
+            TAG_BYTE = 1,
+            TAG_SHORT = 2,
+            TAG_INT = 3,
+            TAG_LONG = 4,
+            TAG_FLOAT = 5,
+            TAG_DOUBLE = 6,
+            TAG_BYTE_ARRAY = 7,
+            TAG_STRING = 8,
+            TAG_LIST = 9,
+            TAG_COMPOUND = 10,
+            TAG_INT_ARRAY = 11,
+            TAG_LONG_ARRAY = 12;
+
+    private NbtReader() {
+    }
+
+    /**
+     * read the root compound, but only the entries with the given names.
+     * Compounds named as container get read the same way, so the wanted entries can be nested in them.
+     * @param in input right at the start of the root tag
+     * @param containerNames names of compounds to look into for wanted entries
+     * @param wantedNames names of entries to read completely
+     * @return the wanted entries (and containers with wanted entries) or null, if the root is not a compound
+     * @throws IOException if the input couldn't get read or isn't valid nbt
+     */
+    public static @Nullable Map<String, Object> readRoot(@NotNull DataInput in, @NotNull Set<String> containerNames, @NotNull Set<String> wantedNames) throws IOException {
+        if (in.readByte() != TAG_COMPOUND) {
+            return null;
+        }
+        in.readUTF(); //name of the root, always empty
+
+        return readSelected(in, containerNames, wantedNames);
+    }
+
+    /**
+     * read the entries of a compound with the given names and skip the others
+     */
+    private static @NotNull Map<String, Object> readSelected(@NotNull DataInput in, @NotNull Set<String> containerNames, @NotNull Set<String> wantedNames) throws IOException {
+        Map<String, Object> result = new HashMap<>();
+
+        for (byte type = in.readByte(); type != TAG_END; type = in.readByte()) {
+            String name = in.readUTF();
+
+            if (wantedNames.contains(name)) {
+                result.put(name, readPayload(in, type));
+            } else if (type == TAG_COMPOUND && containerNames.contains(name)) {
+                result.put(name, readSelected(in, containerNames, wantedNames));
+            } else {
+                skipPayload(in, type);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * read the payload of a tag completely
+     * @param in input right after the type (and name) of the tag
+     * @param type type of the tag
+     * @return the value, arrays are read as primitive arrays
+     * @throws IOException if the input couldn't get read or isn't valid nbt
+     */
+    public static @NotNull Object readPayload(@NotNull DataInput in, byte type) throws IOException {
+        switch (type) {
+            case TAG_BYTE -> {
+                return in.readByte();
+            }
+            case TAG_SHORT -> {
+                return in.readShort();
+            }
+            case TAG_INT -> {
+                return in.readInt();
+            }
+            case TAG_LONG -> {
+                return in.readLong();
+            }
+            case TAG_FLOAT -> {
+                return in.readFloat();
+            }
+            case TAG_DOUBLE -> {
+                return in.readDouble();
+            }
+            case TAG_BYTE_ARRAY -> {
+                byte[] array = new byte[readLength(in)];
+                in.readFully(array);
+                return array;
+            }
+            case TAG_STRING -> {
+                return in.readUTF();
+            }
+            case TAG_LIST -> {
+                byte elementType = in.readByte();
+                int length = readLength(in);
+                List<Object> list = new ArrayList<>(Math.min(length, 1024));
+
+                for (int i = 0; i < length; i++) {
+                    list.add(readPayload(in, elementType));
+                }
+                return list;
+            }
+            case TAG_COMPOUND -> {
+                Map<String, Object> compound = new HashMap<>();
+
+                for (byte entryType = in.readByte(); entryType != TAG_END; entryType = in.readByte()) {
+                    String name = in.readUTF();
+                    compound.put(name, readPayload(in, entryType));
+                }
+                return compound;
+            }
+            case TAG_INT_ARRAY -> {
+                int[] array = new int[readLength(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readInt();
+                }
+                return array;
+            }
+            case TAG_LONG_ARRAY -> {
+                long[] array = new long[readLength(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readLong();
+                }
+                return array;
+            }
+            default -> throw new IOException("unknown nbt tag type " + type);
+        }
+    }
+
+    /**
+     * skip the payload of a tag, without storing anything
+     * @param in input right after the type (and name) of the tag
+     * @param type type of the tag
+     * @throws IOException if the input couldn't get read or isn't valid nbt
+     */
+    public static void skipPayload(@NotNull DataInput in, byte type) throws IOException {
+        switch (type) {
+            case TAG_BYTE -> skipFully(in, 1);
+            case TAG_SHORT -> skipFully(in, 2);
+            case TAG_INT, TAG_FLOAT -> skipFully(in, 4);
+            case TAG_LONG, TAG_DOUBLE -> skipFully(in, 8);
+            case TAG_BYTE_ARRAY -> skipFully(in, readLength(in));
+            case TAG_STRING -> skipFully(in, in.readUnsignedShort());
+            case TAG_LIST -> {
+                byte elementType = in.readByte();
+                int length = readLength(in);
+
+                for (int i = 0; i < length; i++) {
+                    skipPayload(in, elementType);
+                }
+            }
+            case TAG_COMPOUND -> {
+                for (byte entryType = in.readByte(); entryType != TAG_END; entryType = in.readByte()) {
+                    skipFully(in, in.readUnsignedShort());
+                    skipPayload(in, entryType);
+                }
+            }
+            case TAG_INT_ARRAY -> skipFully(in, (long) readLength(in) * 4);
+            case TAG_LONG_ARRAY -> skipFully(in, (long) readLength(in) * 8);
+            default -> throw new IOException("unknown nbt tag type " + type);
+        }
+    }
+
+    /**
+     * @return a length of an array or list, negative ones are treated as empty
+     */
+    private static int readLength(@NotNull DataInput in) throws IOException {
+        return Math.max(0, in.readInt());
+    }
+
+    /**
+     * skip bytes, skipBytes alone may skip less than asked for
+     */
+    private static void skipFully(@NotNull DataInput in, long bytes) throws IOException {
+        while (bytes > 0) {
+            int skipped = in.skipBytes((int) Math.min(bytes, Integer.MAX_VALUE));
+
+            if (skipped <= 0) {
+                //skipBytes may give up early, reading a byte tells if the end was reached
+                in.readByte();
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package de.greensurvivors.greenbook.wireless;
+
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * identifies a wireless channel by the channel string a transmitter and a receiver share
+ * and the uuid of the player owning it (null, if global owns the channel).
+ * A key gets resolved once, when a sign gets known, and every signal afterwards
+ * can use it as a cheap map key, since its hash is computed only once.
+ * Keys are not interned, two keys of the same owner, channel combination are equal, but not necessarily the same instance.
+ */
+public final class ChannelKey {
+    //uuid of the player owning this channel, null means global
+    private final @Nullable UUID owner;
+    //channel, stripped of all color / formatting
+    private final @NotNull String channel;
+    //keys are immutable, so the hash can get computed once
+    private final int hash;
+
+    private ChannelKey(@Nullable UUID owner, @NotNull String channel) {
+        this.owner = owner;
+        this.channel = channel;
+        this.hash = 31 * Objects.hashCode(owner) + channel.hashCode();
+    }
+
+    /**
+     * get the key of a channel
+     * @param owner uuid of the player owning the channel. If null global owns it.
+     * @param channel channel, stripped of all color / formatting
+     * @return the key for this owner, channel combination
+     */
+    public static @NotNull ChannelKey of(@Nullable UUID owner, @NotNull String channel) {
+        return new ChannelKey(owner, channel);
+    }
+
+    /**
+     * @return uuid of the player owning the channel, or null if it's a global channel
+     */
+    public @Nullable UUID getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return channel, stripped of all color / formatting
+     */
+    public @NotNull String getChannel() {
+        return channel;
+    }
+
+    /**
+     * @return channel and the name of its owner if known, readable for admins
+     */
+    public @NotNull String getDisplayName() {
+        String ownerName = owner == null ? "global" : Bukkit.getOfflinePlayer(owner).getName();
+
+        return "'" + channel + "' (" + (ownerName == null ? owner : ownerName) + ")";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        return obj instanceof ChannelKey other && hash == other.hash && channel.equals(other.channel) && Objects.equals(owner, other.owner);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return (owner == null ? "global" : owner.toString()) + ":" + channel;
+    }
+}
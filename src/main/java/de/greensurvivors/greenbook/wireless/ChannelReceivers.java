@@ -0,0 +1,287 @@
+package de.greensurvivors.greenbook.wireless;
+
+import de.greensurvivors.greenbook.utils.LongHashMap;
+import de.greensurvivors.greenbook.utils.LongHashSet;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * the receivers of one wireless channel, grouped by world and chunk.
+ * This way a signal only has to check once per chunk if it is loaded,
+ * and never looks at a single receiver of a chunk that isn't.
+ * Unloaded chunks can get remembered instead and caught up with once they load.
+ * <br>
+ * For sending a signal the receivers get compiled into a plan of flat arrays, receivers are block positions
+ * packed via {@link Block#getBlockKey(int, int, int)}. Walking the plan itself creates no location or boxed key per receiver,
+ * what the {@link ReceiverAction} does with a receiver, like reading its block data, might still allocate.
+ * If receivers change, only the chunks they are in get compiled again, the next time the plan is needed.
+ */
+public class ChannelReceivers {
+    /**
+     * action performed for a receiver
+     */
+    @FunctionalInterface
+    public interface ReceiverAction {
+        /**
+         * @param world world of the receiver
+         * @param blockKey position of the receiver sign, packed via {@link Block#getBlockKey(int, int, int)}
+         */
+        void accept(@NotNull World world, long blockKey);
+    }
+
+    /**
+     * action performed for a chunk
+     */
+    @FunctionalInterface
+    public interface ChunkAction {
+        /**
+         * @param world world of the chunk
+         * @param chunkKey key of the chunk, see {@link Chunk#getChunkKey(int, int)}
+         */
+        void accept(@NotNull World world, long chunkKey);
+    }
+
+    /**
+     * the receivers of one chunk
+     */
+    private static final class ChunkReceivers {
+        //key of the chunk, x in the lower and z in the upper 32 bits
+        private final long chunkKey;
+        //positions of all receivers in this chunk
+        private final LongHashSet blockKeys = new LongHashSet();
+        //the same positions as flat array, null if it needs to get compiled again
+        private long @Nullable [] compiled = null;
+
+        private ChunkReceivers(long chunkKey) {
+            this.chunkKey = chunkKey;
+        }
+
+        /**
+         * @return the positions of all receivers in this chunk, the array must not get modified
+         */
+        private long @NotNull [] getCompiled() {
+            if (compiled == null) {
+                compiled = blockKeys.toArray();
+            }
+
+            return compiled;
+        }
+    }
+
+    //all receivers, per world and chunk key
+    private final HashMap<World, LongHashMap<ChunkReceivers>> receiversPerChunk = new HashMap<>();
+    //number of all receivers
+    private int size = 0;
+
+    //the compiled plan, every world with the chunks of its receivers at the same index. Null if it needs to get compiled again
+    private World @Nullable [] planWorlds = null;
+    private ChunkReceivers @Nullable [] @Nullable [] planChunks = null;
+
+    /**
+     * new receivers of a channel
+     * @param locations block locations of the receiver signs
+     */
+    public ChannelReceivers(@NotNull Collection<Location> locations) {
+        for (Location location : locations) {
+            add(location);
+        }
+    }
+
+    /**
+     * @param location any location
+     * @return key of the chunk the location is in
+     */
+    private static long getChunkKey(@NotNull Location location) {
+        return Chunk.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    /**
+     * @param location any location
+     * @return the position of the block the location is in, packed via {@link Block#getBlockKey(int, int, int)}
+     */
+    private static long getBlockKey(@NotNull Location location) {
+        return Block.getBlockKey(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * add a receiver
+     * @param location block location of the receiver sign
+     * @return true, if the receiver wasn't already known
+     */
+    public boolean add(@NotNull Location location) {
+        LongHashMap<ChunkReceivers> chunks = receiversPerChunk.computeIfAbsent(location.getWorld(), k -> new LongHashMap<>());
+        long chunkKey = getChunkKey(location);
+        ChunkReceivers chunkReceivers = chunks.get(chunkKey);
+
+        if (chunkReceivers == null) {
+            chunkReceivers = new ChunkReceivers(chunkKey);
+            chunks.put(chunkKey, chunkReceivers);
+
+            //a new chunk changes the plan itself
+            planWorlds = null;
+            planChunks = null;
+        }
+
+        if (chunkReceivers.blockKeys.add(getBlockKey(location))) {
+            chunkReceivers.compiled = null;
+            size++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * remove a receiver
+     * @param location block location of the receiver sign
+     * @return true, if the receiver was known
+     */
+    public boolean remove(@NotNull Location location) {
+        LongHashMap<ChunkReceivers> chunks = receiversPerChunk.get(location.getWorld());
+        if (chunks == null) {
+            return false;
+        }
+
+        long chunkKey = getChunkKey(location);
+        ChunkReceivers chunkReceivers = chunks.get(chunkKey);
+        if (chunkReceivers == null || !chunkReceivers.blockKeys.remove(getBlockKey(location))) {
+            return false;
+        }
+        chunkReceivers.compiled = null;
+
+        //don't keep empty chunks or worlds around
+        if (chunkReceivers.blockKeys.isEmpty()) {
+            chunks.remove(chunkKey);
+
+            if (chunks.isEmpty()) {
+                receiversPerChunk.remove(location.getWorld());
+            }
+
+            planWorlds = null;
+            planChunks = null;
+        }
+
+        size--;
+        return true;
+    }
+
+    /**
+     * forget all receivers of a world, they stay in storage
+     * @param world world that unloads
+     * @return true, if the channel had receivers in this world
+     */
+    public boolean removeWorld(@NotNull World world) {
+        LongHashMap<ChunkReceivers> chunks = receiversPerChunk.remove(world);
+        if (chunks == null) {
+            return false;
+        }
+
+        for (ChunkReceivers chunkReceivers : chunks.values()) {
+            size -= chunkReceivers.blockKeys.size();
+        }
+
+        planWorlds = null;
+        planChunks = null;
+        return true;
+    }
+
+    /**
+     * @return number of all receivers
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * compile the plan, if it isn't already
+     */
+    private void compile() {
+        if (planWorlds == null || planChunks == null) {
+            World[] worlds = new World[receiversPerChunk.size()];
+            ChunkReceivers[][] chunks = new ChunkReceivers[worlds.length][];
+
+            int i = 0;
+            for (World world : receiversPerChunk.keySet()) {
+                worlds[i] = world;
+                chunks[i] = receiversPerChunk.get(world).values().toArray(new ChunkReceivers[0]);
+                i++;
+            }
+
+            planWorlds = worlds;
+            planChunks = chunks;
+        }
+    }
+
+    /**
+     * call the action for every receiver in a loaded chunk, and the other action once for every chunk with receivers,
+     * that isn't loaded.
+     * The actions may add or remove receivers, they will take effect the next time the plan gets used.
+     * @param loadedAction action to perform for the position of every receiver sign in a loaded chunk
+     * @param unloadedChunkAction action to perform for every unloaded chunk
+     * @return number of receivers in loaded chunks
+     */
+    public int forEachChunk(@NotNull ReceiverAction loadedAction, @NotNull ChunkAction unloadedChunkAction) {
+        compile();
+
+        //a change while walking the plan replaces the arrays instead of modifying them
+        final World[] worlds = planWorlds;
+        final ChunkReceivers[][] chunks = planChunks;
+        int loadedReceivers = 0;
+
+        for (int i = 0; i < worlds.length; i++) {
+            final World world = worlds[i];
+
+            for (ChunkReceivers chunkReceivers : chunks[i]) {
+                final long chunkKey = chunkReceivers.chunkKey;
+
+                // the chunk key holds x in the lower and z in the upper 32 bits
+                if (world.isChunkLoaded((int) chunkKey, (int) (chunkKey >> 32))) {
+                    final long[] blockKeys = chunkReceivers.getCompiled();
+                    loadedReceivers += blockKeys.length;
+
+                    for (long blockKey : blockKeys) {
+                        loadedAction.accept(world, blockKey);
+                    }
+                } else {
+                    unloadedChunkAction.accept(world, chunkKey);
+                }
+            }
+        }
+
+        return loadedReceivers;
+    }
+
+    /**
+     * call the action for every receiver in a chunk.
+     * The action may add or remove receivers, they will take effect the next time the chunk gets used.
+     * @param world world of the chunk
+     * @param chunkKey key of the chunk
+     * @param action action to perform for the position of every receiver sign in the chunk
+     * @return number of receivers in the chunk
+     */
+    public int forEachInChunk(@NotNull World world, long chunkKey, @NotNull ReceiverAction action) {
+        LongHashMap<ChunkReceivers> chunks = receiversPerChunk.get(world);
+
+        if (chunks != null) {
+            ChunkReceivers chunkReceivers = chunks.get(chunkKey);
+
+            if (chunkReceivers != null) {
+                final long[] blockKeys = chunkReceivers.getCompiled();
+
+                for (long blockKey : blockKeys) {
+                    action.accept(world, blockKey);
+                }
+                return blockKeys.length;
+            }
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,233 @@
+package de.greensurvivors.greenbook.wireless;
+
+import de.greensurvivors.greenbook.GreenLogger;
+import de.greensurvivors.greenbook.language.Lang;
+import de.greensurvivors.greenbook.utils.LongHashMap;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * chunks waiting to get scanned for receiver signs.
+ * Scanning a chunk means looking at every sign in it, doing this for every chunk right as it loads
+ * slows down chunk loading a lot. Instead, chunks get queued and only a limited amount of time per tick is spent
+ * on scanning them. Every chunk is queued at most once.
+ */
+public class ChunkScanQueue {
+    //progress of a scan requested via command gets reported at most this often
+    private static final long JOB_REPORT_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    //progress of scanning chunks as they load gets logged at most this often
+    private static final long LOG_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * scans a loaded chunk
+     */
+    @FunctionalInterface
+    public interface ChunkScanner {
+        /**
+         * @param chunk the loaded chunk to scan
+         * @return number of receiver signs found
+         */
+        int scan(@NotNull Chunk chunk);
+    }
+
+    /**
+     * a scan of multiple chunks requested by someone, who wants to know how it is going
+     */
+    public static final class ScanJob {
+        private final @NotNull CommandSender sender;
+        private int total = 0, scanned = 0, found = 0;
+        private long lastReportMillis = System.currentTimeMillis();
+
+        public ScanJob(@NotNull CommandSender sender) {
+            this.sender = sender;
+        }
+
+        /**
+         * @return number of chunks queued for this job
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * @return true, if every chunk of this job was scanned
+         */
+        private boolean isDone() {
+            return scanned >= total;
+        }
+    }
+
+    /**
+     * a chunk waiting to get scanned
+     */
+    private static final class QueuedChunk {
+        private final @NotNull World world;
+        private final long chunkKey;
+        //the job this chunk was queued for, null if it got queued because it loaded
+        private @Nullable ScanJob job;
+
+        private QueuedChunk(@NotNull World world, long chunkKey, @Nullable ScanJob job) {
+            this.world = world;
+            this.chunkKey = chunkKey;
+            this.job = job;
+        }
+    }
+
+    //chunks in the order they got queued
+    private final ArrayDeque<QueuedChunk> queue = new ArrayDeque<>();
+    //the same chunks per world and chunk key, so no chunk gets queued twice
+    private final HashMap<World, LongHashMap<QueuedChunk>> queuedChunks = new HashMap<>();
+
+    //chunks scanned and receivers found since the progress was logged last
+    private int scannedSinceLog = 0, foundSinceLog = 0;
+    private long lastLogMillis = System.currentTimeMillis();
+
+    /**
+     * queue a chunk to get scanned, if it isn't already
+     * @param world world of the chunk
+     * @param chunkKey key of the chunk, see {@link Chunk#getChunkKey(int, int)}
+     * @param job job the chunk belongs to, null if it isn't requested by anyone
+     */
+    public void queue(@NotNull World world, long chunkKey, @Nullable ScanJob job) {
+        LongHashMap<QueuedChunk> chunks = queuedChunks.computeIfAbsent(world, k -> new LongHashMap<>());
+        QueuedChunk queuedChunk = chunks.get(chunkKey);
+
+        if (queuedChunk == null) {
+            queuedChunk = new QueuedChunk(world, chunkKey, job);
+            chunks.put(chunkKey, queuedChunk);
+            queue.add(queuedChunk);
+        } else if (queuedChunk.job == null && job != null) {
+            //a chunk nobody asked for, now somebody does
+            queuedChunk.job = job;
+        } else {
+            //already part of another job
+            return;
+        }
+
+        if (job != null) {
+            job.total++;
+        }
+    }
+
+    /**
+     * @return number of chunks waiting to get scanned
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * forget all queued chunks
+     */
+    public void clear() {
+        queue.clear();
+        queuedChunks.clear();
+        scannedSinceLog = 0;
+        foundSinceLog = 0;
+    }
+
+    /**
+     * forget all queued chunks of a world. Chunks of a job count as scanned without finding anything
+     * @param world world that unloads
+     */
+    public void removeWorld(@NotNull World world) {
+        if (queuedChunks.remove(world) == null) {
+            return;
+        }
+
+        LinkedHashSet<ScanJob> touchedJobs = new LinkedHashSet<>();
+        queue.removeIf(queuedChunk -> {
+            if (queuedChunk.world != world) {
+                return false;
+            }
+
+            if (queuedChunk.job != null) {
+                queuedChunk.job.scanned++;
+                touchedJobs.add(queuedChunk.job);
+            }
+            return true;
+        });
+
+        report(touchedJobs);
+    }
+
+    /**
+     * scan queued chunks until the time budget is used up, at least one chunk gets scanned.
+     * Chunks that were unloaded meanwhile get skipped, they will get queued again once they load.
+     * @param budgetNanos time that may be spent
+     * @param scanner scans a chunk
+     */
+    public void drain(long budgetNanos, @NotNull ChunkScanner scanner) {
+        if (queue.isEmpty()) {
+            return;
+        }
+
+        final long startTime = System.nanoTime();
+        LinkedHashSet<ScanJob> touchedJobs = new LinkedHashSet<>();
+
+        do {
+            QueuedChunk queuedChunk = queue.poll();
+
+            LongHashMap<QueuedChunk> chunks = queuedChunks.get(queuedChunk.world);
+            chunks.remove(queuedChunk.chunkKey);
+            if (chunks.isEmpty()) {
+                queuedChunks.remove(queuedChunk.world);
+            }
+
+            int found = 0;
+            // the chunk key holds x in the lower and z in the upper 32 bits
+            int chunkX = (int) queuedChunk.chunkKey, chunkZ = (int) (queuedChunk.chunkKey >> 32);
+            if (queuedChunk.world.isChunkLoaded(chunkX, chunkZ)) {
+                found = scanner.scan(queuedChunk.world.getChunkAt(chunkX, chunkZ));
+            }
+
+            if (queuedChunk.job == null) {
+                scannedSinceLog++;
+                foundSinceLog += found;
+            } else {
+                queuedChunk.job.scanned++;
+                queuedChunk.job.found += found;
+                touchedJobs.add(queuedChunk.job);
+            }
+        } while (!queue.isEmpty() && System.nanoTime() - startTime < budgetNanos);
+
+        report(touchedJobs);
+    }
+
+    /**
+     * tell everyone who requested a scan how far it is, and log the progress of scanning loaded chunks
+     * @param touchedJobs jobs that made progress
+     */
+    private void report(@NotNull Iterable<ScanJob> touchedJobs) {
+        final long now = System.currentTimeMillis();
+
+        for (ScanJob job : touchedJobs) {
+            if (job.isDone()) {
+                job.sender.sendMessage(Lang.build(Lang.WIRELESS_SCAN_DONE.get().
+                        replace(Lang.VALUE, String.valueOf(job.found)).replace(Lang.MAX, String.valueOf(job.total))));
+            } else if (now - job.lastReportMillis >= JOB_REPORT_INTERVAL_MILLIS) {
+                job.lastReportMillis = now;
+                job.sender.sendMessage(Lang.build(Lang.WIRELESS_SCAN_PROGRESS.get().
+                        replace(Lang.VALUE, String.valueOf(job.scanned)).replace(Lang.MAX, String.valueOf(job.total))));
+            }
+        }
+
+        if (scannedSinceLog > 0 && now - lastLogMillis >= LOG_INTERVAL_MILLIS) {
+            GreenLogger.log(Level.INFO, String.format("Scanned %d loaded chunks for wireless receivers and found %d, %d chunks are still queued.",
+                    scannedSinceLog, foundSinceLog, queue.size()));
+
+            lastLogMillis = now;
+            scannedSinceLog = 0;
+            foundSinceLog = 0;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package de.greensurvivors.greenbook.wireless;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * tracks how much time wireless redstone costs, per channel and per owner of channels,
+ * so the worst offenders of the last minutes can get found when the server lags.
+ * Costs are counted in buckets of one real time minute, the last 15 minutes are kept.
+ * Costs older than that get dropped, so channels that stopped sending don't stay in memory.
+ * <br>
+ * Only ever use this from the main thread. Since all wireless work happens there, plain counters are enough,
+ * adding costs needs neither locks nor atomic operations.
+ */
+public class CostTracker {
+    //length of a bucket
+    private static final long BUCKET_NANOS = TimeUnit.MINUTES.toNanos(1);
+    //number of buckets kept, the longest window that can be asked for
+    public static final int MAX_WINDOW_MINUTES = 15;
+
+    /**
+     * costs of one channel or owner, one bucket per minute
+     */
+    public static final class Costs {
+        private final long[] signals = new long[MAX_WINDOW_MINUTES];
+        private final long[] receivers = new long[MAX_WINDOW_MINUTES];
+        private final long[] nanos = new long[MAX_WINDOW_MINUTES];
+        //the bucket costs where last added to
+        private long lastBucket;
+
+        private Costs(long bucket) {
+            this.lastBucket = bucket;
+        }
+
+        /**
+         * add costs to a bucket, buckets that where skipped since the last time get cleared
+         */
+        private void add(long bucket, int signals, int receivers, long nanos) {
+            if (bucket != lastBucket) {
+                //clear every bucket from the last one up to this one, at most all of them
+                for (long skipped = Math.max(lastBucket + 1, bucket - MAX_WINDOW_MINUTES + 1); skipped <= bucket; skipped++) {
+                    int index = Math.floorMod(skipped, MAX_WINDOW_MINUTES);
+
+                    this.signals[index] = 0;
+                    this.receivers[index] = 0;
+                    this.nanos[index] = 0;
+                }
+                lastBucket = bucket;
+            }
+
+            int index = Math.floorMod(bucket, MAX_WINDOW_MINUTES);
+            this.signals[index] += signals;
+            this.receivers[index] += receivers;
+            this.nanos[index] += nanos;
+        }
+
+        /**
+         * sum the buckets of a window
+         * @param values one of the bucket arrays
+         * @param currentBucket the bucket of now
+         * @param minutes length of the window
+         */
+        private long sum(long @NotNull [] values, long currentBucket, int minutes) {
+            long sum = 0;
+            //buckets after the last one added to, or too old, don't count
+            long first = Math.max(currentBucket - Math.min(minutes, MAX_WINDOW_MINUTES) + 1, lastBucket - MAX_WINDOW_MINUTES + 1);
+            long last = Math.min(currentBucket, lastBucket);
+
+            for (long bucket = first; bucket <= last; bucket++) {
+                sum += values[Math.floorMod(bucket, MAX_WINDOW_MINUTES)];
+            }
+
+            return sum;
+        }
+
+        /**
+         * @param minutes length of the window, at most {@link #MAX_WINDOW_MINUTES}
+         * @return signals sent in the last minutes
+         */
+        public long getSignals(int minutes) {
+            return sum(signals, getBucket(System.nanoTime()), minutes);
+        }
+
+        /**
+         * @param minutes length of the window, at most {@link #MAX_WINDOW_MINUTES}
+         * @return receivers updated in the last minutes
+         */
+        public long getReceivers(int minutes) {
+            return sum(receivers, getBucket(System.nanoTime()), minutes);
+        }
+
+        /**
+         * @param minutes length of the window, at most {@link #MAX_WINDOW_MINUTES}
+         * @return nanoseconds spent in the last minutes
+         */
+        public long getNanos(int minutes) {
+            return sum(nanos, getBucket(System.nanoTime()), minutes);
+        }
+    }
+
+    //costs per channel and per owner (null for global channels)
+    private final HashMap<ChannelKey, Costs> channelCosts = new HashMap<>();
+    private final HashMap<UUID, Costs> ownerCosts = new HashMap<>();
+    //the bucket costs where added to last, outdated costs get dropped once it changes
+    private long currentBucket = getBucket(System.nanoTime());
+    //if costs get tracked at all
+    private boolean enabled = false;
+
+    /**
+     * @param enabled if costs should get tracked, disabling forgets all tracked costs
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * @return true, if costs get tracked. If not, don't even measure them
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * forget all tracked costs
+     */
+    public void clear() {
+        channelCosts.clear();
+        ownerCosts.clear();
+    }
+
+    /**
+     * @return the bucket a point in time belongs to
+     */
+    private static long getBucket(long nanoTime) {
+        return Math.floorDiv(nanoTime, BUCKET_NANOS);
+    }
+
+    /**
+     * add costs of a channel, they count for its owner as well
+     * @param channelKey owner and channel
+     * @param signals number of signals sent to receivers
+     * @param receivers number of receivers updated
+     * @param startNanos {@link System#nanoTime()} before the work started
+     * @param endNanos {@link System#nanoTime()} after the work was done
+     */
+    public void add(@NotNull ChannelKey channelKey, int signals, int receivers, long startNanos, long endNanos) {
+        if (!enabled) {
+            return;
+        }
+
+        long bucket = getBucket(endNanos);
+        if (bucket != currentBucket) {
+            currentBucket = bucket;
+            dropOutdated();
+        }
+
+        long nanos = endNanos - startNanos;
+        channelCosts.computeIfAbsent(channelKey, k -> new Costs(bucket)).add(bucket, signals, receivers, nanos);
+        ownerCosts.computeIfAbsent(channelKey.getOwner(), k -> new Costs(bucket)).add(bucket, signals, receivers, nanos);
+    }
+
+    /**
+     * drop everyone who didn't cost anything in the whole time kept
+     */
+    private void dropOutdated() {
+        channelCosts.values().removeIf(costs -> costs.lastBucket <= currentBucket - MAX_WINDOW_MINUTES);
+        ownerCosts.values().removeIf(costs -> costs.lastBucket <= currentBucket - MAX_WINDOW_MINUTES);
+    }
+
+    /**
+     * @param minutes length of the window, at most {@link #MAX_WINDOW_MINUTES}
+     * @param limit maximum number of channels
+     * @return the channels that cost the most time in the last minutes, the most expensive first
+     */
+    public @NotNull List<ChannelKey> getTopChannels(int minutes, int limit) {
+        return getTop(channelCosts, minutes, limit);
+    }
+
+    /**
+     * @param minutes length of the window, at most {@link #MAX_WINDOW_MINUTES}
+     * @param limit maximum number of owners
+     * @return the owners whose channels cost the most time in the last minutes, the most expensive first. Null stands for global channels
+     */
+    public @NotNull List<@Nullable UUID> getTopOwners(int minutes, int limit) {
+        return getTop(ownerCosts, minutes, limit);
+    }
+
+    /**
+     * @return the keys with the most nanoseconds in the window
+     */
+    private <K> @NotNull List<K> getTop(@NotNull HashMap<K, Costs> costs, int minutes, int limit) {
+        final long bucket = getBucket(System.nanoTime());
+        List<K> top = new ArrayList<>();
+
+        costs.entrySet().stream().
+                filter(entry -> entry.getValue().sum(entry.getValue().nanos, bucket, minutes) > 0).
+                sorted(Comparator.comparingLong((Map.Entry<K, Costs> entry) -> entry.getValue().sum(entry.getValue().nanos, bucket, minutes)).reversed()).
+                limit(Math.max(0, limit)).
+                forEach(entry -> top.add(entry.getKey()));
+
+        return top;
+    }
+
+    /**
+     * @param channelKey owner and channel
+     * @return costs of the channel, null if it didn't cost anything lately
+     */
+    public @Nullable Costs getChannelCosts(@NotNull ChannelKey channelKey) {
+        return channelCosts.get(channelKey);
+    }
+
+    /**
+     * @param owner owner of channels, null for global channels
+     * @return costs of all channels of the owner together, null if they didn't cost anything lately
+     */
+    public @Nullable Costs getOwnerCosts(@Nullable UUID owner) {
+        return ownerCosts.get(owner);
+    }
+}
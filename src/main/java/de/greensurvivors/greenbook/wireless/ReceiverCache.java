@@ -0,0 +1,220 @@
+package de.greensurvivors.greenbook.wireless;
+
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+
+/**
+ * cache of the receivers of wireless channels, bounded by the number of channels and the number of receivers of all channels together.
+ * If one of the limits is exceeded, the least recently used channels get evicted first.
+ * Channels that were used within the last pin ticks are hot and never get evicted, same as channels the caller pins,
+ * even if the limits can't be kept without them.
+ * An evicted channel has to get loaded from storage again the next time it is needed, a limit of 0 means unlimited.
+ * <br>
+ * Only ever use this from the main thread.
+ */
+public class ReceiverCache {
+    //all cached channels, the least recently used one first
+    private final LinkedHashMap<ChannelKey, CachedChannel> channels = new LinkedHashMap<>(16, 0.75f, true);
+    //source of the current server tick, to know how recently a channel was used
+    private final @NotNull IntSupplier currentTick;
+
+    //maximum number of cached channels and receivers of all cached channels together
+    private int maxChannels = 0, maxReceivers = 0;
+    //channels used within this many ticks never get evicted, 0 pins none of them
+    private int pinTicks = 0;
+
+    //statistics since the cache was created or cleared
+    private long hits = 0, misses = 0, evictions = 0;
+
+    /**
+     * @param currentTick source of the current server tick
+     */
+    public ReceiverCache(@NotNull IntSupplier currentTick) {
+        this.currentTick = currentTick;
+    }
+
+    /**
+     * set the limits, 0 means unlimited. They get applied the next time {@link #evict(Predicate)} is called
+     * @param maxChannels maximum number of cached channels
+     * @param maxReceivers maximum number of receivers of all cached channels together
+     * @param pinTicks channels used within this many ticks are hot and never get evicted, 0 pins none of them
+     */
+    public void setLimits(int maxChannels, int maxReceivers, int pinTicks) {
+        this.maxChannels = Math.max(0, maxChannels);
+        this.maxReceivers = Math.max(0, maxReceivers);
+        this.pinTicks = Math.max(0, pinTicks);
+    }
+
+    /**
+     * get the receivers of a cached channel and mark it as recently used.
+     * Counts as hit or miss.
+     * @param channelKey owner and channel
+     * @return the receivers or null, if the channel isn't cached
+     */
+    public @Nullable ChannelReceivers get(@NotNull ChannelKey channelKey) {
+        ChannelReceivers receivers = peek(channelKey);
+
+        if (receivers == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+
+        return receivers;
+    }
+
+    /**
+     * get the receivers of a cached channel and mark it as recently used, without counting it as hit or miss.
+     * Meant for maintaining the receivers, not for sending signals
+     * @param channelKey owner and channel
+     * @return the receivers or null, if the channel isn't cached
+     */
+    public @Nullable ChannelReceivers peek(@NotNull ChannelKey channelKey) {
+        CachedChannel cachedChannel = channels.get(channelKey);
+
+        if (cachedChannel == null) {
+            return null;
+        }
+
+        cachedChannel.lastUsedTick = currentTick.getAsInt();
+        return cachedChannel.receivers;
+    }
+
+    /**
+     * cache the receivers of a channel as most recently used
+     * @param channelKey owner and channel
+     * @param receivers receivers of the channel
+     */
+    public void put(@NotNull ChannelKey channelKey, @NotNull ChannelReceivers receivers) {
+        channels.put(channelKey, new CachedChannel(receivers, currentTick.getAsInt()));
+    }
+
+    /**
+     * remove a channel, so it gets loaded from storage again the next time it is needed.
+     * Doesn't count as eviction
+     * @param channelKey owner and channel
+     */
+    public void invalidate(@NotNull ChannelKey channelKey) {
+        channels.remove(channelKey);
+    }
+
+    /**
+     * forget the receivers of a world in all cached channels, they stay in storage
+     * @param world world that unloads
+     */
+    public void removeWorld(@NotNull World world) {
+        for (CachedChannel cachedChannel : channels.values()) {
+            cachedChannel.receivers.removeWorld(world);
+        }
+    }
+
+    /**
+     * evict the least recently used channels, until the limits are kept again.
+     * Hot channels, used within the last pin ticks, and channels the caller pins stay cached.
+     * @param pinned test if a channel may not get evicted right now
+     * @return owner and channel of every evicted channel, the least recently used first
+     */
+    public @NotNull List<ChannelKey> evict(@NotNull Predicate<ChannelKey> pinned) {
+        long totalReceivers = maxReceivers > 0 ? getReceiverCount() : 0;
+        int hotSinceTick = currentTick.getAsInt() - pinTicks;
+
+        List<ChannelKey> evicted = new ArrayList<>();
+        Iterator<Map.Entry<ChannelKey, CachedChannel>> iterator = channels.entrySet().iterator();
+        while (iterator.hasNext() && isOverLimit(totalReceivers)) {
+            Map.Entry<ChannelKey, CachedChannel> entry = iterator.next();
+
+            //channels are ordered by their last use, so every channel after the first hot one is hot as well
+            if (pinTicks > 0 && entry.getValue().lastUsedTick > hotSinceTick) {
+                break;
+            }
+
+            if (!pinned.test(entry.getKey())) {
+                totalReceivers -= entry.getValue().receivers.size();
+                iterator.remove();
+                evicted.add(entry.getKey());
+            }
+        }
+
+        evictions += evicted.size();
+        return evicted;
+    }
+
+    /**
+     * @param totalReceivers number of receivers of all cached channels together
+     * @return true, if one of the limits is exceeded
+     */
+    private boolean isOverLimit(long totalReceivers) {
+        return (maxChannels > 0 && channels.size() > maxChannels) || (maxReceivers > 0 && totalReceivers > maxReceivers);
+    }
+
+    /**
+     * forget all cached channels and statistics
+     */
+    public void clear() {
+        channels.clear();
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /**
+     * @return number of cached channels
+     */
+    public int size() {
+        return channels.size();
+    }
+
+    /**
+     * @return number of receivers of all cached channels together
+     */
+    public long getReceiverCount() {
+        long totalReceivers = 0;
+        for (CachedChannel cachedChannel : channels.values()) {
+            totalReceivers += cachedChannel.receivers.size();
+        }
+
+        return totalReceivers;
+    }
+
+    public int getMaxChannels() {
+        return maxChannels;
+    }
+
+    public int getMaxReceivers() {
+        return maxReceivers;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * receivers of a cached channel and the tick it was used the last time
+     */
+    private static final class CachedChannel {
+        private final @NotNull ChannelReceivers receivers;
+        private int lastUsedTick;
+
+        private CachedChannel(@NotNull ChannelReceivers receivers, int lastUsedTick) {
+            this.receivers = receivers;
+            this.lastUsedTick = lastUsedTick;
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package de.greensurvivors.greenbook.wireless;
+
+import de.greensurvivors.greenbook.GreenLogger;
+import de.greensurvivors.greenbook.utils.NbtReader;
+import net.kyori.adventure.text.serializer.gson.GsonComponentSerializer;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * finds receiver signs by reading the region files (.mca) of worlds directly from disk, without loading a single chunk.
+ * The region files get read by a few worker threads, so the disk keeps enough bandwidth left for the server itself.
+ * Only signs on a wall are receivers, all others get skipped before their lines are parsed.
+ * <br>
+ * Chunks that are loaded right now might have changes not yet saved to their region file, those have to get saved
+ * (or scanned via the compatibility mode) to be found.
+ */
+public class RegionScanner {
+    //a region file is made of sectors of this size, the first two are the header
+    private static final int SECTOR_SIZE = 4096;
+    //a region file holds 32 x 32 chunks
+    private static final int CHUNKS_PER_REGION = 32 * 32;
+    //compression types of a chunk
+    private static final byte
+            COMPRESSION_GZIP = 1,
+            COMPRESSION_ZLIB = 2,
+            COMPRESSION_NONE = 3;
+    //flag of the compression type marking chunks too big for the region file, they are saved in their own file
+    private static final byte COMPRESSION_EXTERNAL_FLAG = (byte) 0x80;
+    //name of region files, with the region coordinates
+    private static final Pattern REGION_FILE_PATTERN = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
+    //compounds that may hold the block entities of a chunk (before minecraft 1.18), the lists of them
+    //and the sections with the block states (since minecraft 1.18)
+    private static final Set<String>
+            CONTAINER_NAMES = Set.of("Level"),
+            CHUNK_ENTRY_NAMES = Set.of("block_entities", "TileEntities", "sections");
+    //block entity ids of signs (before minecraft 1.11 the id was not namespaced)
+    private static final Set<String> SIGN_IDS = Set.of("minecraft:sign", "Sign");
+    //block entity compound holding the persistent data container of bukkit
+    private static final String BUKKIT_VALUES = "PublicBukkitValues";
+
+    /**
+     * tells if a sign is a receiver
+     */
+    @FunctionalInterface
+    public interface SignParser {
+        /**
+         * Gets called from worker threads.
+         * @param lines the plain text of the lines of the sign
+         * @param ownerUUID the uuid saved in the persistent data of the sign, if any
+         * @return owner and channel, if the sign is a receiver, null otherwise
+         */
+        @Nullable ChannelKey parseReceiver(@NotNull String @NotNull [] lines, @Nullable String ownerUUID);
+    }
+
+    private final @NotNull SignParser signParser;
+    //key of the owner uuid in the persistent data of a sign
+    private final @NotNull String ownerKey;
+    //number of worker threads reading region files
+    private final int threads;
+
+    //progress, read by the main thread while the workers are busy
+    private final AtomicInteger
+            regionsTotal = new AtomicInteger(),
+            regionsScanned = new AtomicInteger(),
+            receiversFound = new AtomicInteger(),
+            failedChunks = new AtomicInteger();
+
+    //all receivers found, per owner and channel
+    private final HashMap<ChannelKey, List<Location>> foundReceivers = new HashMap<>();
+
+    //set once the scan got cancelled, the workers skip everything left
+    private volatile boolean cancelled = false;
+    //the running scan and its workers, null until the scan started
+    private volatile @Nullable CompletableFuture<HashMap<ChannelKey, List<Location>>> runningScan = null;
+    private volatile @Nullable ExecutorService runningExecutor = null;
+
+    /**
+     * a new scanner, every scanner should only scan once
+     * @param signParser tells if a sign is a receiver
+     * @param ownerKey key of the owner uuid in the persistent data of a sign
+     * @param threads number of worker threads reading region files, at least one
+     */
+    public RegionScanner(@NotNull SignParser signParser, @NotNull String ownerKey, int threads) {
+        this.signParser = signParser;
+        this.ownerKey = ownerKey;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @param world any world
+     * @return the folder the region files of the world are in
+     */
+    public static @NotNull File getRegionFolder(@NotNull World world) {
+        return switch (world.getEnvironment()) {
+            case NETHER -> new File(world.getWorldFolder(), "DIM-1" + File.separator + "region");
+            case THE_END -> new File(world.getWorldFolder(), "DIM1" + File.separator + "region");
+            default -> new File(world.getWorldFolder(), "region");
+        };
+    }
+
+    /**
+     * @return number of region files to scan
+     */
+    public int getRegionsTotal() {
+        return regionsTotal.get();
+    }
+
+    /**
+     * @return number of region files already scanned
+     */
+    public int getRegionsScanned() {
+        return regionsScanned.get();
+    }
+
+    /**
+     * @return number of receiver signs found so far
+     */
+    public int getReceiversFound() {
+        return receiversFound.get();
+    }
+
+    /**
+     * @return number of chunks that couldn't get read
+     */
+    public int getFailedChunks() {
+        return failedChunks.get();
+    }
+
+    /**
+     * @return true, if the scan got cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * cancel the scan. The future of the scan completes with a {@link java.util.concurrent.CancellationException} right away,
+     * the workers finish the region they are reading and skip the rest, then they stop.
+     */
+    public void cancel() {
+        cancelled = true;
+
+        CompletableFuture<HashMap<ChannelKey, List<Location>>> scan = runningScan;
+        if (scan != null) {
+            scan.cancel(false);
+        }
+
+        //the future can't shut down the workers anymore, once it was cancelled
+        ExecutorService executor = runningExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * scan all region files of the worlds, using the worker threads of this scanner
+     * @param worlds worlds to scan
+     * @return future of all receivers found, per owner and channel. Completes on a worker thread.
+     */
+    public @NotNull CompletableFuture<HashMap<ChannelKey, List<Location>>> scan(@NotNull List<World> worlds) {
+        if (cancelled) {
+            CompletableFuture<HashMap<ChannelKey, List<Location>>> cancelledFuture = new CompletableFuture<>();
+            cancelledFuture.cancel(false);
+            return cancelledFuture;
+        }
+
+        //list all files first, so the total is known right away
+        List<World> fileWorlds = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+
+        for (World world : worlds) {
+            File[] regionFiles = getRegionFolder(world).listFiles((dir, name) -> REGION_FILE_PATTERN.matcher(name).matches());
+
+            if (regionFiles != null) {
+                for (File regionFile : regionFiles) {
+                    fileWorlds.add(world);
+                    files.add(regionFile);
+                }
+            }
+        }
+        regionsTotal.set(files.size());
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "GreenBook-Region-Scan-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        runningExecutor = executor;
+
+        //the executor shuts itself down once every region is done, unless setting up the scan fails
+        boolean started = false;
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[files.size()];
+            for (int i = 0; i < files.size(); i++) {
+                final World world = fileWorlds.get(i);
+                final File regionFile = files.get(i);
+
+                futures[i] = CompletableFuture.runAsync(() -> {
+                    if (cancelled) {
+                        return;
+                    }
+
+                    scanRegion(world, regionFile);
+                    regionsScanned.incrementAndGet();
+                }, executor);
+            }
+
+            CompletableFuture<HashMap<ChannelKey, List<Location>>> scanFuture = CompletableFuture.allOf(futures).handle((ignored, throwable) -> {
+                executor.shutdown();
+
+                if (throwable != null) {
+                    throw new RuntimeException("couldn't scan region files", throwable);
+                }
+
+                synchronized (foundReceivers) {
+                    return foundReceivers;
+                }
+            });
+            runningScan = scanFuture;
+            started = true;
+
+            return scanFuture;
+        } finally {
+            if (!started) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * scan every chunk of a region file. Chunks that can't get read are counted and skipped.
+     * @param world the world the region file belongs to
+     * @param regionFile the region file
+     */
+    private void scanRegion(@NotNull World world, @NotNull File regionFile) {
+        Matcher matcher = REGION_FILE_PATTERN.matcher(regionFile.getName());
+        if (!matcher.matches()) {
+            return;
+        }
+        int regionX = Integer.parseInt(matcher.group(1)), regionZ = Integer.parseInt(matcher.group(2));
+
+        HashMap<ChannelKey, List<Location>> regionReceivers = new HashMap<>();
+
+        try (RandomAccessFile file = new RandomAccessFile(regionFile, "r")) {
+            //empty or cut off region files don't have chunks
+            if (file.length() < 2L * SECTOR_SIZE) {
+                return;
+            }
+
+            byte[] header = new byte[SECTOR_SIZE];
+            file.readFully(header);
+
+            for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+                // 3 bytes offset and 1 byte length, both in sectors
+                int sectorOffset = ((header[i * 4] & 0xFF) << 16) | ((header[i * 4 + 1] & 0xFF) << 8) | (header[i * 4 + 2] & 0xFF);
+                int sectorCount = header[i * 4 + 3] & 0xFF;
+                if (sectorOffset < 2 || sectorCount == 0) {
+                    //chunk was never generated
+                    continue;
+                }
+
+                try {
+                    byte[] chunkData = readChunk(file, regionFile, sectorOffset, sectorCount,
+                            regionX * 32 + (i & 31), regionZ * 32 + (i >> 5));
+
+                    if (chunkData != null) {
+                        scanChunk(world, chunkData, regionReceivers);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failedChunks.incrementAndGet();
+                    GreenLogger.log(Level.FINE, "couldn't read chunk " + i + " of region file " + regionFile, e);
+                }
+            }
+        } catch (IOException e) {
+            GreenLogger.log(Level.WARNING, "couldn't read region file " + regionFile, e);
+        }
+
+        if (!regionReceivers.isEmpty()) {
+            synchronized (foundReceivers) {
+                regionReceivers.forEach((channelKey, locations) ->
+                        foundReceivers.computeIfAbsent(channelKey, k -> new ArrayList<>()).addAll(locations));
+            }
+        }
+    }
+
+    /**
+     * read the data of a chunk, the first byte is its compression type
+     * @return the data of the chunk or null, if the chunk is empty
+     */
+    private byte @Nullable [] readChunk(@NotNull RandomAccessFile file, @NotNull File regionFile, int sectorOffset, int sectorCount,
+                                        int chunkX, int chunkZ) throws IOException {
+        file.seek((long) sectorOffset * SECTOR_SIZE);
+        int length = file.readInt();
+        if (length <= 0) {
+            return null;
+        } else if (length > sectorCount * SECTOR_SIZE) {
+            throw new IOException("chunk " + chunkX + ", " + chunkZ + " is longer than its sectors");
+        }
+
+        byte[] data = new byte[length];
+        file.readFully(data);
+
+        if ((data[0] & COMPRESSION_EXTERNAL_FLAG) != 0) {
+            //chunk is too big for the region file, the data is in a file of its own
+            byte[] externalData = Files.readAllBytes(new File(regionFile.getParentFile(), "c." + chunkX + "." + chunkZ + ".mcc").toPath());
+            byte[] result = new byte[externalData.length + 1];
+
+            result[0] = (byte) (data[0] & ~COMPRESSION_EXTERNAL_FLAG);
+            System.arraycopy(externalData, 0, result, 1, externalData.length);
+            return result;
+        }
+
+        return data;
+    }
+
+    /**
+     * find all receiver signs in the block entities of a chunk
+     * @param world world of the chunk
+     * @param chunkData data of the chunk, the first byte is its compression type
+     * @param regionReceivers receivers found in the region file, the new ones get added
+     */
+    private void scanChunk(@NotNull World world, byte @NotNull [] chunkData, @NotNull HashMap<ChannelKey, List<Location>> regionReceivers) throws IOException {
+        InputStream rawIn = new ByteArrayInputStream(chunkData, 1, chunkData.length - 1);
+        InputStream in = switch (chunkData[0]) {
+            case COMPRESSION_GZIP -> new GZIPInputStream(rawIn);
+            case COMPRESSION_ZLIB -> new InflaterInputStream(rawIn);
+            case COMPRESSION_NONE -> rawIn;
+            default -> throw new IOException("unsupported chunk compression " + chunkData[0]);
+        };
+
+        Map<String, Object> root;
+        try (DataInputStream dataIn = new DataInputStream(new BufferedInputStream(in))) {
+            root = NbtReader.readRoot(dataIn, CONTAINER_NAMES, CHUNK_ENTRY_NAMES);
+        }
+        if (root == null) {
+            return;
+        }
+
+        Object blockEntities = root.get("block_entities");
+        if (blockEntities == null && root.get("Level") instanceof Map<?, ?> level) {
+            blockEntities = level.get("TileEntities");
+        }
+
+        if (blockEntities instanceof List<?> blockEntityList) {
+            for (Object blockEntity : blockEntityList) {
+                if (blockEntity instanceof Map<?, ?> compound && compound.get("id") instanceof String id && SIGN_IDS.contains(id) &&
+                        compound.get("x") instanceof Integer x && compound.get("y") instanceof Integer y && compound.get("z") instanceof Integer z &&
+                        //chunks from before minecraft 1.18 have no sections to tell, the listener checks their signs once they load
+                        isWallSign(root.get("sections"), x, y, z) != Boolean.FALSE) {
+                    String ownerUUID = null;
+                    if (compound.get(BUKKIT_VALUES) instanceof Map<?, ?> bukkitValues && bukkitValues.get(ownerKey) instanceof String value) {
+                        ownerUUID = value;
+                    }
+
+                    ChannelKey channelKey = signParser.parseReceiver(getLines(compound), ownerUUID);
+                    if (channelKey != null) {
+                        regionReceivers.computeIfAbsent(channelKey, k -> new ArrayList<>()).add(new Location(world, x, y, z));
+                        receiversFound.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * tell if the block at a position is a wall sign, from the block states of the sections of its chunk (since minecraft 1.18)
+     * @param sections the sections of the chunk, null if it has none in a known format
+     * @param x x coordinate of the block
+     * @param y y coordinate of the block
+     * @param z z coordinate of the block
+     * @return if the block is a wall sign, or null if the sections can't tell
+     */
+    static @Nullable Boolean isWallSign(@Nullable Object sections, int x, int y, int z) {
+        if (!(sections instanceof List<?> sectionList)) {
+            return null;
+        }
+
+        for (Object section : sectionList) {
+            if (section instanceof Map<?, ?> sectionCompound && sectionCompound.get("Y") instanceof Number sectionY && sectionY.intValue() == y >> 4) {
+                if (!(sectionCompound.get("block_states") instanceof Map<?, ?> blockStates) ||
+                        !(blockStates.get("palette") instanceof List<?> palette) || palette.isEmpty()) {
+                    return null;
+                }
+
+                //a section of only one block state has no data
+                int paletteIndex = 0;
+                if (palette.size() > 1) {
+                    if (!(blockStates.get("data") instanceof long[] data)) {
+                        return null;
+                    }
+
+                    //every block is an index into the palette, at least 4 bits long. Indexes never span two longs
+                    int bits = Math.max(4, Integer.SIZE - Integer.numberOfLeadingZeros(palette.size() - 1));
+                    int indexesPerLong = Long.SIZE / bits;
+                    int blockIndex = ((y & 15) * 16 + (z & 15)) * 16 + (x & 15);
+                    if (blockIndex / indexesPerLong >= data.length) {
+                        return null;
+                    }
+
+                    paletteIndex = (int) ((data[blockIndex / indexesPerLong] >>> ((blockIndex % indexesPerLong) * bits)) & ((1L << bits) - 1));
+                    if (paletteIndex >= palette.size()) {
+                        return null;
+                    }
+                }
+
+                //hanging signs end with _wall_hanging_sign
+                return palette.get(paletteIndex) instanceof Map<?, ?> blockState && blockState.get("Name") instanceof String name && name.endsWith("_wall_sign");
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * get the plain text of the front lines of a sign block entity
+     * @param sign block entity of the sign
+     * @return the 4 lines, missing ones are empty
+     */
+    private static @NotNull String @NotNull [] getLines(@NotNull Map<?, ?> sign) {
+        String[] lines = new String[]{"", "", "", ""};
+
+        if (sign.get("front_text") instanceof Map<?, ?> frontText && frontText.get("messages") instanceof List<?> messages) {
+            //since minecraft 1.20 signs have two sides
+            for (int i = 0; i < Math.min(lines.length, messages.size()); i++) {
+                lines[i] = toPlainText(messages.get(i));
+            }
+        } else {
+            for (int i = 0; i < lines.length; i++) {
+                lines[i] = toPlainText(sign.get("Text" + (i + 1)));
+            }
+        }
+
+        return lines;
+    }
+
+    /**
+     * @param line a line of a sign, usually a json text component
+     * @return the line without any formatting
+     */
+    private static @NotNull String toPlainText(@Nullable Object line) {
+        if (line instanceof String json) {
+            try {
+                return PlainTextComponentSerializer.plainText().serialize(GsonComponentSerializer.gson().deserialize(json));
+            } catch (RuntimeException e) {
+                //not json, the text itself
+                return json;
+            }
+        } else if (line instanceof Map<?, ?> component && component.get("text") instanceof String text) {
+            return text;
+        }
+
+        return "";
+    }
+}
@@ -0,0 +1,183 @@
+package de.greensurvivors.greenbook.wireless;
+
+import de.greensurvivors.greenbook.GreenLogger;
+import de.greensurvivors.greenbook.PermissionUtils;
+import de.greensurvivors.greenbook.language.Lang;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * limits how often a wireless channel may send a signal to its receivers, per channel and per owner of channels.
+ * A fast redstone clock on a transmitter would otherwise update all of its receivers every tick.
+ * The limits count in fixed windows of one tick and one second (20 ticks), a limit of 0 means unlimited.
+ * <br>
+ * There is no per tick limit for single channels: the listener collects the states of a channel until the end of the tick
+ * and only sends the last one, so every channel acquires at most one signal per tick anyway.
+ * Only the owner limits per tick can cut that further, since an owner may have any number of channels.
+ */
+public class SignalLimiter {
+    //a throttled channel gets reported at most once in this many ticks
+    private static final int REPORT_INTERVAL_TICKS = 20 * 60;
+
+    /**
+     * signals sent in the current tick and second
+     */
+    private static final class Counter {
+        private int tick = Integer.MIN_VALUE;
+        private int signalsThisTick = 0;
+        private int signalsThisSecond = 0;
+    }
+
+    //maximum number of signals per second for every channel
+    private int maxChannelSignalsPerSecond = 0;
+    //maximum number of signals per tick and per second of all channels of one owner together
+    private int maxOwnerSignalsPerTick = 0, maxOwnerSignalsPerSecond = 0;
+
+    //the second the counters are counting in
+    private int currentSecond = Integer.MIN_VALUE;
+    //signals of this second, per channel and per owner (null for global channels)
+    private final HashMap<ChannelKey, Counter> channelCounters = new HashMap<>();
+    private final HashMap<UUID, Counter> ownerCounters = new HashMap<>();
+    //the tick every throttled channel was reported last
+    private final HashMap<ChannelKey, Integer> lastReportTicks = new HashMap<>();
+    //tells about a throttled channel
+    private final @NotNull Consumer<@NotNull ChannelKey> throttleNotifier;
+
+    /**
+     * new limiter without limits, throttled channels get reported to the log and all online admins
+     */
+    public SignalLimiter() {
+        this(SignalLimiter::notifyThrottled);
+    }
+
+    /**
+     * new limiter without limits
+     * @param throttleNotifier gets told about a throttled channel, at most once per report interval of the channel
+     */
+    SignalLimiter(@NotNull Consumer<@NotNull ChannelKey> throttleNotifier) {
+        this.throttleNotifier = throttleNotifier;
+    }
+
+    /**
+     * set the limits, 0 means unlimited
+     * @param maxChannelSignalsPerSecond maximum number of signals per second for every channel
+     * @param maxOwnerSignalsPerTick maximum number of signals per tick of all channels of one owner together
+     * @param maxOwnerSignalsPerSecond maximum number of signals per second of all channels of one owner together
+     */
+    public void setLimits(int maxChannelSignalsPerSecond, int maxOwnerSignalsPerTick, int maxOwnerSignalsPerSecond) {
+        this.maxChannelSignalsPerSecond = Math.max(0, maxChannelSignalsPerSecond);
+        this.maxOwnerSignalsPerTick = Math.max(0, maxOwnerSignalsPerTick);
+        this.maxOwnerSignalsPerSecond = Math.max(0, maxOwnerSignalsPerSecond);
+    }
+
+    /**
+     * forget all counted signals and reports
+     */
+    public void clear() {
+        currentSecond = Integer.MIN_VALUE;
+        channelCounters.clear();
+        ownerCounters.clear();
+        lastReportTicks.clear();
+    }
+
+    /**
+     * forget the channels that weren't reported within the report interval, so the report ticks don't grow forever
+     * @param currentTick the current server tick
+     */
+    public void pruneReports(int currentTick) {
+        lastReportTicks.values().removeIf(lastReportTick -> currentTick - lastReportTick >= REPORT_INTERVAL_TICKS);
+    }
+
+    /**
+     * @return number of channels that were reported within the report interval, or still have to get pruned
+     */
+    int getReportedChannels() {
+        return lastReportTicks.size();
+    }
+
+    /**
+     * get the counter of the current tick
+     */
+    private @NotNull Counter getCounter(@NotNull Counter counter, int currentTick) {
+        if (counter.tick != currentTick) {
+            counter.tick = currentTick;
+            counter.signalsThisTick = 0;
+        }
+
+        return counter;
+    }
+
+    /**
+     * test if a channel may send a signal right now, and count the signal if so.
+     * A channel that may not, gets reported.
+     * @param channelKey channel that wants to send a signal
+     * @param currentTick the current server tick
+     * @return true, if the signal may get sent
+     */
+    public boolean tryAcquire(@NotNull ChannelKey channelKey, int currentTick) {
+        if (maxChannelSignalsPerSecond == 0 && maxOwnerSignalsPerTick == 0 && maxOwnerSignalsPerSecond == 0) {
+            return true;
+        }
+
+        //a new second, all counters start over
+        if (currentTick / 20 != currentSecond) {
+            currentSecond = currentTick / 20;
+            channelCounters.clear();
+            ownerCounters.clear();
+        }
+
+        Counter channelCounter = getCounter(channelCounters.computeIfAbsent(channelKey, k -> new Counter()), currentTick);
+        Counter ownerCounter = getCounter(ownerCounters.computeIfAbsent(channelKey.getOwner(), k -> new Counter()), currentTick);
+
+        if ((maxChannelSignalsPerSecond > 0 && channelCounter.signalsThisSecond >= maxChannelSignalsPerSecond) ||
+                (maxOwnerSignalsPerTick > 0 && ownerCounter.signalsThisTick >= maxOwnerSignalsPerTick) ||
+                (maxOwnerSignalsPerSecond > 0 && ownerCounter.signalsThisSecond >= maxOwnerSignalsPerSecond)) {
+            report(channelKey, currentTick);
+            return false;
+        }
+
+        channelCounter.signalsThisTick++;
+        channelCounter.signalsThisSecond++;
+        ownerCounter.signalsThisTick++;
+        ownerCounter.signalsThisSecond++;
+        return true;
+    }
+
+    /**
+     * report that a channel got throttled, if it wasn't reported recently
+     * @param channelKey the throttled channel
+     * @param currentTick the current server tick
+     */
+    private void report(@NotNull ChannelKey channelKey, int currentTick) {
+        Integer lastReportTick = lastReportTicks.get(channelKey);
+        if (lastReportTick != null && currentTick - lastReportTick < REPORT_INTERVAL_TICKS) {
+            return;
+        }
+        lastReportTicks.put(channelKey, currentTick);
+
+        throttleNotifier.accept(channelKey);
+    }
+
+    /**
+     * tell the log and all online admins that a channel got throttled
+     * @param channelKey the throttled channel
+     */
+    private static void notifyThrottled(@NotNull ChannelKey channelKey) {
+        String channelName = channelKey.getDisplayName();
+        GreenLogger.log(Level.INFO, "throttled wireless channel " + channelName + ", it is sending signals too fast.");
+
+        Component message = Lang.build(Lang.WIRELESS_THROTTLED.get().replace(Lang.VALUE, channelName));
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (PermissionUtils.hasPermission(player, PermissionUtils.GREENBOOK_WIRELESS_NOTIFY)) {
+                player.sendMessage(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package de.greensurvivors.greenbook;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * minimal world for tests, that don't need a running server.
+ * It only knows its name, its uuid and which of its chunks are loaded, every other method fails.
+ */
+public final class TestWorld {
+    private TestWorld() {
+    }
+
+    /**
+     * create a world, all of its chunks are loaded
+     * @param name name of the world
+     * @return the new world
+     */
+    public static @NotNull World create(@NotNull String name) {
+        return create(name, UUID.randomUUID(), null);
+    }
+
+    /**
+     * create a world, only some of its chunks are loaded
+     * @param name name of the world
+     * @param loadedChunks keys of the loaded chunks, see {@link Chunk#getChunkKey(int, int)}. May get changed while the world is used
+     * @return the new world
+     */
+    public static @NotNull World create(@NotNull String name, @NotNull Set<Long> loadedChunks) {
+        return create(name, UUID.randomUUID(), loadedChunks);
+    }
+
+    /**
+     * create a world
+     * @param name name of the world
+     * @param uuid uuid of the world
+     * @param loadedChunks keys of the loaded chunks, null if all of them are loaded
+     * @return the new world
+     */
+    public static @NotNull World create(@NotNull String name, @NotNull UUID uuid, @Nullable Set<Long> loadedChunks) {
+        return (World) Proxy.newProxyInstance(TestWorld.class.getClassLoader(), new Class<?>[]{World.class}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "getName", "toString" -> name;
+                    case "getUID" -> uuid;
+                    case "isChunkLoaded" -> loadedChunks == null || loadedChunks.contains(Chunk.getChunkKey((int) args[0], (int) args[1]));
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> throw new UnsupportedOperationException(method.getName() + " is not supported by test worlds");
+                });
+    }
+}
@@ -0,0 +1,77 @@
+package de.greensurvivors.greenbook.config;
+
+import de.greensurvivors.greenbook.GreenLogger;
+import de.greensurvivors.greenbook.wireless.ChannelKey;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChannelStateFileTest {
+    @TempDir
+    File folder;
+
+    private final UUID owner = UUID.randomUUID();
+
+    @BeforeAll
+    static void setUpLogger() {
+        GreenLogger.setLogger(Logger.getLogger("ChannelStateFileTest"));
+    }
+
+    private File stateFile() {
+        return new File(folder, "channel_states.gbwc");
+    }
+
+    @Test
+    void statesSurviveWritingAndReading() {
+        HashMap<ChannelKey, Integer> states = new HashMap<>();
+        states.put(ChannelKey.of(owner, "analog"), 7);
+        states.put(ChannelKey.of(owner, "off"), 0);
+        states.put(ChannelKey.of(null, "global"), 15);
+
+        new ChannelStateFile(stateFile()).write(states);
+
+        assertEquals(states, new ChannelStateFile(stateFile()).read());
+        assertFalse(new File(folder, "channel_states.gbwc.tmp").exists());
+    }
+
+    @Test
+    void writingReplacesTheOldStates() {
+        ChannelStateFile file = new ChannelStateFile(stateFile());
+        file.write(Map.of(ChannelKey.of(owner, "old"), 15));
+        file.write(Map.of(ChannelKey.of(owner, "new"), 3));
+
+        assertEquals(Map.of(ChannelKey.of(owner, "new"), 3), file.read());
+    }
+
+    @Test
+    void missingFileHasNoStates() {
+        assertTrue(new ChannelStateFile(stateFile()).read().isEmpty());
+    }
+
+    @Test
+    void brokenFileHasNoStates() throws IOException {
+        ChannelStateFile file = new ChannelStateFile(stateFile());
+        file.write(Map.of(ChannelKey.of(owner, "a"), 1, ChannelKey.of(owner, "b"), 2));
+
+        //cut off in the middle of the second channel, no half read states
+        byte[] content = Files.readAllBytes(stateFile().toPath());
+        Files.write(stateFile().toPath(), Arrays.copyOf(content, content.length - 3));
+        assertTrue(file.read().isEmpty());
+
+        Files.write(stateFile().toPath(), new byte[]{'G', 'B', 'W', 'C', 3, 0});
+        assertTrue(file.read().isEmpty());
+    }
+}
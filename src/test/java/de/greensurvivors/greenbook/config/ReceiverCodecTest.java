@@ -0,0 +1,64 @@
+package de.greensurvivors.greenbook.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReceiverCodecTest {
+    private static DataInputStream input(byte... bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    void varIntsSurviveWritingAndReading() throws IOException {
+        int[] values = {0, 1, 127, 128, 300, 16_383, 16_384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int value : values) {
+            ReceiverCodec.writeVarInt(out, value);
+        }
+
+        DataInputStream in = input(bytes.toByteArray());
+        for (int value : values) {
+            assertEquals(value, ReceiverCodec.readVarInt(in));
+        }
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    void smallVarIntsNeedOneByte() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ReceiverCodec.writeVarInt(new DataOutputStream(bytes), 127);
+        assertEquals(1, bytes.size());
+
+        ReceiverCodec.writeVarInt(new DataOutputStream(bytes), 128);
+        assertEquals(3, bytes.size());
+    }
+
+    @Test
+    void tooLongVarIntGetsRejected() {
+        byte continued = (byte) 0x80;
+
+        assertThrows(IOException.class, () -> ReceiverCodec.readVarInt(input(continued, continued, continued, continued, continued, (byte) 1)));
+    }
+
+    @Test
+    void zigzagKeepsSmallNegativeValuesSmall() {
+        assertEquals(0, ReceiverCodec.zigzag(0));
+        assertEquals(1, ReceiverCodec.zigzag(-1));
+        assertEquals(2, ReceiverCodec.zigzag(1));
+        assertEquals(3, ReceiverCodec.zigzag(-2));
+
+        for (int value : new int[]{0, 1, -1, 64, -64, 30_000_000, -30_000_000, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            assertEquals(value, ReceiverCodec.unZigzag(ReceiverCodec.zigzag(value)));
+        }
+    }
+}
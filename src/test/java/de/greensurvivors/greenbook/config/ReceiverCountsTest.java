@@ -0,0 +1,68 @@
+package de.greensurvivors.greenbook.config;
+
+import de.greensurvivors.greenbook.wireless.ChannelKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReceiverCountsTest {
+    private final UUID owner = UUID.randomUUID();
+
+    @Test
+    void countsReceiversAndChannelsPerOwner() {
+        ReceiverCounts counts = new ReceiverCounts();
+        ChannelKey a = ChannelKey.of(owner, "a"), b = ChannelKey.of(owner, "b");
+
+        counts.change(a, 2);
+        counts.change(b, 1);
+        counts.change(b, -5);
+
+        assertEquals(2, counts.getReceivers(a));
+        assertEquals(0, counts.getReceivers(b));
+        assertEquals(2, counts.getOwnerReceivers(owner));
+        assertEquals(1, counts.getOwnerChannels(owner));
+    }
+
+    @Test
+    void reservedReceiversCountUntilReleased() {
+        ReceiverCounts counts = new ReceiverCounts();
+        ChannelKey saved = ChannelKey.of(owner, "saved"), fresh = ChannelKey.of(owner, "fresh");
+        counts.change(saved, 1);
+
+        counts.reserve(saved, 1);
+        counts.reserve(fresh, 1);
+        counts.reserve(fresh, 1);
+
+        assertEquals(2, counts.getReceivers(saved));
+        assertEquals(2, counts.getReceivers(fresh));
+        assertEquals(4, counts.getOwnerReceivers(owner));
+        //only the reserved channel without saved receivers is a new channel
+        assertEquals(2, counts.getOwnerChannels(owner));
+
+        counts.release(saved, 1);
+        counts.release(fresh, 2);
+
+        assertEquals(1, counts.getReceivers(saved));
+        assertEquals(0, counts.getReceivers(fresh));
+        assertEquals(1, counts.getOwnerReceivers(owner));
+        assertEquals(1, counts.getOwnerChannels(owner));
+    }
+
+    @Test
+    void replaceAllKeepsReservations() {
+        ReceiverCounts counts = new ReceiverCounts();
+        ChannelKey a = ChannelKey.of(owner, "a"), global = ChannelKey.of(null, "global");
+        counts.change(a, 7);
+        counts.reserve(a, 1);
+
+        counts.replaceAll(Map.of(a, 3, global, 5));
+
+        assertEquals(4, counts.getReceivers(a));
+        assertEquals(5, counts.getOwnerReceivers(null));
+        assertEquals(Arrays.asList(null, owner), counts.getTopOwners(2));
+    }
+}
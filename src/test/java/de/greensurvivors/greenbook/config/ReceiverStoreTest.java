@@ -0,0 +1,335 @@
+package de.greensurvivors.greenbook.config;
+
+import de.greensurvivors.greenbook.GreenLogger;
+import de.greensurvivors.greenbook.TestWorld;
+import de.greensurvivors.greenbook.wireless.ChannelKey;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReceiverStoreTest {
+    @TempDir
+    File folder;
+
+    //the worlds the store can resolve, like the loaded worlds of a server
+    private final HashMap<UUID, World> loadedWorlds = new HashMap<>();
+    private final World world = load(TestWorld.create("world"));
+    private final ChannelKey channel = ChannelKey.of(UUID.randomUUID(), "channel");
+    private final ChannelKey otherChannel = ChannelKey.of(null, "other");
+
+    private ReceiverStore store;
+
+    @BeforeAll
+    static void setUpLogger() {
+        GreenLogger.setLogger(Logger.getLogger("ReceiverStoreTest"));
+    }
+
+    @AfterEach
+    void closeStore() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private @NotNull World load(@NotNull World world) {
+        loadedWorlds.put(world.getUID(), world);
+        return world;
+    }
+
+    private @NotNull File storeFile() {
+        return new File(folder, "receivers.gbws");
+    }
+
+    /**
+     * close the current store, if any, and open the file again
+     */
+    private @NotNull ReceiverStore reopen() throws IOException {
+        closeStore();
+
+        store = new ReceiverStore(storeFile(), loadedWorlds::get, name -> loadedWorlds.values().stream().
+                filter(world -> world.getName().equals(name)).findAny().orElse(null));
+        store.open();
+        return store;
+    }
+
+    private @NotNull Location at(@NotNull World world, int x, int y, int z) {
+        return new Location(world, x, y, z);
+    }
+
+    @Test
+    void receiversSurviveReopening() throws IOException {
+        reopen();
+        store.add(channel, at(world, 1, 64, -1));
+        store.addAll(channel, List.of(at(world, -100_000, -64, 5), at(world, 7, 320, 30_000_000)));
+        store.add(otherChannel, at(world, 0, 0, 0));
+        store.remove(channel, at(world, 1, 64, -1));
+        store.sync();
+
+        reopen();
+
+        assertEquals(Set.of(at(world, -100_000, -64, 5), at(world, 7, 320, 30_000_000)), store.load(channel));
+        assertEquals(Set.of(at(world, 0, 0, 0)), store.load(otherChannel));
+        assertNull(store.load(ChannelKey.of(null, "never used")));
+        assertEquals(2, store.getReceiverCounts().getReceivers(channel));
+        assertEquals(2, store.getReceiverCounts().getOwnerReceivers(channel.getOwner()));
+        assertEquals(1, store.getReceiverCounts().getOwnerReceivers(null));
+    }
+
+    @Test
+    void removingTheLastReceiverKeepsTheChannelKnown() throws IOException {
+        reopen();
+        store.add(channel, at(world, 1, 2, 3));
+        store.remove(channel, at(world, 1, 2, 3));
+
+        reopen();
+
+        assertTrue(store.contains(channel));
+        assertEquals(Set.of(), store.load(channel));
+        assertEquals(0, store.getReceiverCounts().getReceivers(channel));
+        assertEquals(0, store.getReceiverCounts().getOwnerChannels(channel.getOwner()));
+    }
+
+    @Test
+    void addingAndRemovingTwiceCountsOnce() throws IOException {
+        reopen();
+        store.add(channel, at(world, 1, 2, 3));
+        store.add(channel, at(world, 1, 2, 3));
+        store.addAll(channel, List.of(at(world, 1, 2, 3), at(world, 4, 5, 6)));
+        store.remove(otherChannel, at(world, 1, 2, 3));
+        store.remove(channel, at(TestWorld.create("never stored"), 4, 5, 6));
+
+        assertEquals(2, store.getReceiverCounts().getReceivers(channel));
+        assertEquals(0, store.getReceiverCounts().getReceivers(otherChannel));
+
+        store.remove(channel, at(world, 4, 5, 6));
+        store.remove(channel, at(world, 4, 5, 6));
+        assertEquals(1, store.getReceiverCounts().getReceivers(channel));
+
+        reopen();
+
+        assertEquals(Set.of(at(world, 1, 2, 3)), store.load(channel));
+        assertEquals(1, store.getReceiverCounts().getReceivers(channel));
+        assertEquals(1, store.getReceiverCounts().getOwnerReceivers(channel.getOwner()));
+        assertEquals(0, store.getReceiverCounts().getOwnerReceivers(null));
+    }
+
+    @Test
+    void syncOnlySucceedsWhileOpen() throws IOException {
+        reopen();
+        store.add(channel, at(world, 1, 2, 3));
+        assertTrue(store.sync());
+
+        store.close();
+        assertFalse(store.sync());
+    }
+
+    @Test
+    void cutOffRecordGetsDropped() throws IOException {
+        reopen();
+        store.add(channel, at(world, 1, 2, 3));
+        store.close();
+
+        //a record that claims 100 bytes, but the server stopped after 3 of them
+        try (RandomAccessFile file = new RandomAccessFile(storeFile(), "rw")) {
+            file.seek(file.length());
+            file.writeInt(100);
+            file.writeInt(0);
+            file.write(new byte[]{1, 2, 3});
+        }
+
+        reopen();
+        assertEquals(Set.of(at(world, 1, 2, 3)), store.load(channel));
+        assertFalse(new File(folder, "receivers.gbws.corrupt").exists());
+
+        //new records have to follow the last valid one, not the cut off one
+        store.add(channel, at(world, 4, 5, 6));
+        reopen();
+
+        assertEquals(Set.of(at(world, 1, 2, 3), at(world, 4, 5, 6)), store.load(channel));
+    }
+
+    @Test
+    void recordNotMatchingItsChecksumEndsTheFile() throws IOException {
+        reopen();
+        store.add(channel, at(world, 1, 2, 3));
+        store.add(channel, at(world, 4, 5, 6));
+        store.close();
+
+        //the last byte is part of the z coordinate of the last receiver
+        try (RandomAccessFile file = new RandomAccessFile(storeFile(), "rw")) {
+            file.seek(file.length() - 1);
+            byte lastByte = file.readByte();
+            file.seek(file.length() - 1);
+            file.writeByte(lastByte ^ 0x01);
+        }
+
+        reopen();
+
+        assertEquals(Set.of(at(world, 1, 2, 3)), store.load(channel));
+        assertEquals(1, store.getReceiverCounts().getReceivers(channel));
+        //the record was complete, so it wasn't just cut short
+        assertTrue(new File(folder, "receivers.gbws.corrupt").exists());
+    }
+
+    @Test
+    void brokenRecordInTheMiddleGetsSkipped() throws IOException {
+        reopen();
+        store.add(channel, at(world, 1, 2, 3));
+        long brokenRecordEnd = storeFile().length();
+        store.add(channel, at(world, 4, 5, 6));
+        store.add(otherChannel, at(world, 7, 8, 9));
+        store.close();
+        long sizeBefore = storeFile().length();
+
+        //the last byte of the first receiver record is part of its z coordinate
+        try (RandomAccessFile file = new RandomAccessFile(storeFile(), "rw")) {
+            file.seek(brokenRecordEnd - 1);
+            byte lastByte = file.readByte();
+            file.seek(brokenRecordEnd - 1);
+            file.writeByte(lastByte ^ 0x01);
+        }
+
+        reopen();
+
+        assertEquals(sizeBefore, storeFile().length());
+        assertTrue(new File(folder, "receivers.gbws.corrupt").exists());
+        assertEquals(Set.of(at(world, 4, 5, 6)), store.load(channel));
+        assertEquals(Set.of(at(world, 4, 5, 6)), store.loadAll().get(channel));
+        assertEquals(Set.of(at(world, 7, 8, 9)), store.load(otherChannel));
+
+        //compacting drops the broken part
+        store.add(channel, at(world, 10, 11, 12));
+        store.compact();
+        reopen();
+
+        assertEquals(Set.of(at(world, 4, 5, 6), at(world, 10, 11, 12)), store.load(channel));
+        assertEquals(Set.of(at(world, 7, 8, 9)), store.load(otherChannel));
+    }
+
+    @Test
+    void otherFilesDoNotGetOpened() throws IOException {
+        Files.write(storeFile().toPath(), new byte[]{'G', 'B', 'W', 'R', 1, 0});
+
+        assertThrows(IOException.class, this::reopen);
+    }
+
+    @Test
+    void removingOnlyMarksTheStoreForCompacting() throws IOException {
+        reopen();
+        for (int i = 0; i < 600; i++) {
+            store.add(channel, at(world, i, 64, 0));
+        }
+        for (int i = 0; i < 600; i++) {
+            store.remove(channel, at(world, i, 64, 0));
+        }
+        long sizeBefore = storeFile().length();
+
+        //compacting is up to the caller, removing never rewrites the file
+        assertTrue(store.needsCompaction());
+        assertEquals(sizeBefore, storeFile().length());
+
+        store.compact();
+        assertFalse(store.needsCompaction());
+    }
+
+    @Test
+    void compactingKeepsOnlyLivingReceivers() throws IOException {
+        reopen();
+        for (int i = 0; i < 100; i++) {
+            store.add(channel, at(world, i, 64, 0));
+        }
+        for (int i = 0; i < 90; i++) {
+            store.remove(channel, at(world, i, 64, 0));
+        }
+        store.add(otherChannel, at(world, 0, 0, 0));
+        long sizeBefore = storeFile().length();
+
+        store.compact();
+
+        assertTrue(storeFile().length() < sizeBefore);
+        assertFalse(new File(folder, "receivers.gbws.tmp").exists());
+        HashMap<ChannelKey, Set<Location>> expected = new HashMap<>();
+        expected.put(channel, new HashSet<>());
+        for (int i = 90; i < 100; i++) {
+            expected.get(channel).add(at(world, i, 64, 0));
+        }
+        expected.put(otherChannel, Set.of(at(world, 0, 0, 0)));
+
+        assertEquals(expected, new HashMap<>(store.loadAll()));
+        assertEquals(10, store.getReceiverCounts().getReceivers(channel));
+
+        //the compacted file has to be a valid store as well
+        reopen();
+        assertEquals(expected.get(channel), store.load(channel));
+    }
+
+    @Test
+    void receiversOfUnloadedWorldsSurviveCompacting() throws IOException {
+        World nether = load(TestWorld.create("world_nether"));
+        reopen();
+        store.add(channel, at(nether, 1, 2, 3));
+        store.add(channel, at(world, 4, 5, 6));
+
+        loadedWorlds.remove(nether.getUID());
+        assertEquals(Set.of(at(world, 4, 5, 6)), store.load(channel));
+        store.compact();
+
+        load(nether);
+        assertEquals(Set.of(at(nether, 1, 2, 3), at(world, 4, 5, 6)), store.load(channel));
+        assertEquals(Set.of(channel), store.getChannelsOf(nether));
+    }
+
+    @Test
+    void copiedWorldGetsResolvedByName() throws IOException {
+        World original = load(TestWorld.create("copied"));
+        reopen();
+        store.add(channel, at(original, 1, 2, 3));
+
+        //the world got replaced by a copy, it has the same name but a new uuid
+        loadedWorlds.remove(original.getUID());
+        World copy = load(TestWorld.create("copied"));
+        reopen();
+
+        assertEquals(Set.of(at(copy, 1, 2, 3)), store.load(channel));
+        assertEquals(Set.of(channel), store.getChannelsOf(copy));
+
+        //new receivers of the copy go into the same world entry
+        store.add(channel, at(copy, 4, 5, 6));
+        reopen();
+        assertEquals(Set.of(at(copy, 1, 2, 3), at(copy, 4, 5, 6)), store.load(channel));
+    }
+
+    @Test
+    void migratedReceiversOfUnknownWorldsGetResolvedOnceTheWorldLoads() throws IOException {
+        reopen();
+        store.addUnloaded(channel, List.of(new ReceiverCodec.UnloadedReceiver(null, "later", 1, 2, 3)));
+
+        assertEquals(Set.of(), store.load(channel));
+        assertEquals(1, store.getReceiverCounts().getReceivers(channel));
+
+        World later = load(TestWorld.create("later"));
+        reopen();
+        assertEquals(Set.of(at(later, 1, 2, 3)), store.load(channel));
+    }
+}
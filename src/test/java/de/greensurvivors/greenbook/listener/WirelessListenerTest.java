@@ -0,0 +1,49 @@
+package de.greensurvivors.greenbook.listener;
+
+import de.greensurvivors.greenbook.GreenLogger;
+import de.greensurvivors.greenbook.config.ChannelStateFile;
+import de.greensurvivors.greenbook.wireless.ChannelKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WirelessListenerTest {
+    @TempDir
+    File folder;
+
+    @BeforeAll
+    static void setUpLogger() {
+        GreenLogger.setLogger(Logger.getLogger("WirelessListenerTest"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        WirelessListener.inst().clear();
+    }
+
+    @Test
+    void channelStatesSurviveTheShutdown() {
+        Map<ChannelKey, Integer> states = Map.of(
+                ChannelKey.of(UUID.randomUUID(), "door"), 15,
+                ChannelKey.of(null, "lamp"), 4);
+        WirelessListener.inst().restoreChannelStates(states);
+
+        //the same order as on disable: clear the listener, afterwards write the states
+        HashMap<ChannelKey, Integer> channelStates = WirelessListener.inst().clearAndGetChannelStates();
+        ChannelStateFile channelStateFile = new ChannelStateFile(new File(folder, "channel_states.gbwc"));
+        channelStateFile.write(channelStates);
+
+        assertTrue(WirelessListener.inst().getChannelStates().isEmpty());
+        assertEquals(states, channelStateFile.read());
+    }
+}
@@ -0,0 +1,78 @@
+package de.greensurvivors.greenbook.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashMapTest {
+    private static Map<Long, String> toMap(LongHashMap<String> map) {
+        Map<Long, String> result = new HashMap<>();
+        map.forEach((key, value) -> assertNull(result.put(key, value)));
+
+        assertEquals(map.size(), result.size());
+        assertEquals(result.size(), map.values().size());
+        assertTrue(result.values().containsAll(map.values()));
+
+        return result;
+    }
+
+    @Test
+    void behavesLikeAHashMap() {
+        Random random = new Random(42);
+        LongHashMap<String> map = new LongHashMap<>();
+        Map<Long, String> expected = new HashMap<>();
+
+        //few distinct keys, so removing hits often and probe chains get long
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000) * 0x1_0000_0000L - 1_000;
+
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.remove(key), map.remove(key));
+                case 1 -> assertEquals(expected.put(key, "put " + i), map.put(key, "put " + i));
+                default -> assertEquals(expected.computeIfAbsent(key, k -> "computed " + k), map.computeIfAbsent(key, k -> "computed " + k));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (int i = -10; i < 2_000; i++) {
+            long key = i * 0x1_0000_0000L - 1_000;
+
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        assertEquals(expected, toMap(map));
+    }
+
+    @Test
+    void computeIfAbsentKeepsExistingValues() {
+        LongHashMap<String> map = new LongHashMap<>();
+        String value = map.computeIfAbsent(Long.MIN_VALUE, key -> "first");
+
+        assertSame(value, map.computeIfAbsent(Long.MIN_VALUE, key -> "second"));
+        assertEquals(Map.of(Long.MIN_VALUE, "first"), toMap(map));
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        LongHashMap<String> map = new LongHashMap<>(100);
+        for (long key = 0; key < 100; key++) {
+            map.put(key, String.valueOf(key));
+        }
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(5));
+        assertEquals(Map.of(), toMap(map));
+
+        map.put(5, "again");
+        assertEquals(Map.of(5L, "again"), toMap(map));
+    }
+}
@@ -0,0 +1,82 @@
+package de.greensurvivors.greenbook.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashSetTest {
+    private static Set<Long> toSet(LongHashSet set) {
+        Set<Long> result = Arrays.stream(set.toArray()).boxed().collect(Collectors.toSet());
+        assertEquals(set.size(), result.size());
+
+        Set<Long> visited = new HashSet<>();
+        set.forEach(value -> assertTrue(visited.add(value)));
+        assertEquals(result, visited);
+
+        return result;
+    }
+
+    @Test
+    void behavesLikeAHashSet() {
+        Random random = new Random(42);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+
+        //few distinct values, so removing hits often and probe chains get long
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(2_000) * 0x1_0000_0000L;
+
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+
+        for (long value = -10; value < 2_000; value++) {
+            assertEquals(expected.contains(value * 0x1_0000_0000L), set.contains(value * 0x1_0000_0000L));
+        }
+        assertEquals(expected, toSet(set));
+    }
+
+    @Test
+    void valueMarkingFreeSlotsCanBeStored() {
+        LongHashSet set = new LongHashSet(1);
+
+        assertFalse(set.contains(Long.MIN_VALUE));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertFalse(set.add(Long.MIN_VALUE));
+        assertTrue(set.add(0));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertEquals(Set.of(Long.MIN_VALUE, 0L), toSet(set));
+
+        assertTrue(set.remove(Long.MIN_VALUE));
+        assertFalse(set.remove(Long.MIN_VALUE));
+        assertEquals(Set.of(0L), toSet(set));
+    }
+
+    @Test
+    void growsAndEmpties() {
+        LongHashSet set = new LongHashSet();
+
+        for (long value = 0; value < 1_000; value++) {
+            set.add(value);
+        }
+        assertEquals(1_000, set.size());
+
+        for (long value = 0; value < 1_000; value++) {
+            assertTrue(set.remove(value));
+        }
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.toArray().length);
+    }
+}
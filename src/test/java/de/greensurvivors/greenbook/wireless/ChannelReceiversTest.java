@@ -0,0 +1,114 @@
+package de.greensurvivors.greenbook.wireless;
+
+import de.greensurvivors.greenbook.TestWorld;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChannelReceiversTest {
+    //chunk 0, 0 is loaded, chunk 1, 0 and -1, -1 are not
+    private final Set<Long> loadedChunks = new HashSet<>(Set.of(Chunk.getChunkKey(0, 0)));
+    private final World world = TestWorld.create("world", loadedChunks);
+
+    /**
+     * @return the positions of all receivers in loaded chunks, and the keys of all unloaded chunks
+     */
+    private static List<Set<Long>> walk(ChannelReceivers receivers) {
+        Set<Long> blockKeys = new HashSet<>(), unloadedChunks = new HashSet<>();
+        int loaded = receivers.forEachChunk((world, blockKey) -> assertTrue(blockKeys.add(blockKey)),
+                (world, chunkKey) -> assertTrue(unloadedChunks.add(chunkKey)));
+
+        assertEquals(blockKeys.size(), loaded);
+        return List.of(blockKeys, unloadedChunks);
+    }
+
+    @Test
+    void unloadedChunksGetReportedInsteadOfTheirReceivers() {
+        ChannelReceivers receivers = new ChannelReceivers(List.of(
+                new Location(world, 1, 64, 1), new Location(world, 15, -64, 15),
+                new Location(world, 16, 64, 0), new Location(world, 17, 64, 0),
+                new Location(world, -1, 64, -1)));
+
+        List<Set<Long>> result = walk(receivers);
+
+        assertEquals(5, receivers.size());
+        assertEquals(Set.of(Block.getBlockKey(1, 64, 1), Block.getBlockKey(15, -64, 15)), result.get(0));
+        assertEquals(Set.of(Chunk.getChunkKey(1, 0), Chunk.getChunkKey(-1, -1)), result.get(1));
+    }
+
+    @Test
+    void changesShowUpTheNextTimeThePlanIsUsed() {
+        ChannelReceivers receivers = new ChannelReceivers(List.of(new Location(world, 1, 64, 1)));
+        walk(receivers);
+
+        assertTrue(receivers.add(new Location(world, 2, 64, 2)));
+        assertFalse(receivers.add(new Location(world, 2.5, 64.9, 2.1)));
+        assertTrue(receivers.add(new Location(world, 32, 64, 0)));
+        assertTrue(receivers.remove(new Location(world, 1, 64, 1)));
+        assertFalse(receivers.remove(new Location(world, 1, 64, 1)));
+
+        List<Set<Long>> result = walk(receivers);
+        assertEquals(2, receivers.size());
+        assertEquals(Set.of(Block.getBlockKey(2, 64, 2)), result.get(0));
+        assertEquals(Set.of(Chunk.getChunkKey(2, 0)), result.get(1));
+
+        //the last receiver of a chunk takes the chunk with it
+        assertTrue(receivers.remove(new Location(world, 32, 64, 0)));
+        assertEquals(Set.of(), walk(receivers).get(1));
+    }
+
+    @Test
+    void receiversCanChangeWhileThePlanIsWalked() {
+        ChannelReceivers receivers = new ChannelReceivers(List.of(new Location(world, 1, 64, 1), new Location(world, 2, 64, 2)));
+        List<Long> visited = new ArrayList<>();
+
+        receivers.forEachChunk((world, blockKey) -> {
+            visited.add(blockKey);
+            receivers.remove(new Location(world, Block.getBlockKeyX(blockKey), Block.getBlockKeyY(blockKey), Block.getBlockKeyZ(blockKey)));
+            receivers.add(new Location(world, 100, 64, 100));
+        }, (world, chunkKey) -> {
+        });
+
+        assertEquals(2, visited.size());
+        assertEquals(1, receivers.size());
+        assertEquals(Set.of(Chunk.getChunkKey(6, 6)), walk(receivers).get(1));
+    }
+
+    @Test
+    void loadingChunkCatchesUpWithItsReceivers() {
+        ChannelReceivers receivers = new ChannelReceivers(List.of(new Location(world, 16, 64, 0), new Location(world, 17, 70, 3)));
+        long chunkKey = Chunk.getChunkKey(1, 0);
+        Set<Long> blockKeys = new HashSet<>();
+
+        assertEquals(2, receivers.forEachInChunk(world, chunkKey, (world, blockKey) -> blockKeys.add(blockKey)));
+        assertEquals(Set.of(Block.getBlockKey(16, 64, 0), Block.getBlockKey(17, 70, 3)), blockKeys);
+        assertEquals(0, receivers.forEachInChunk(world, Chunk.getChunkKey(5, 5), (world, blockKey) -> blockKeys.add(blockKey)));
+
+        loadedChunks.add(chunkKey);
+        assertEquals(blockKeys, walk(receivers).get(0));
+    }
+
+    @Test
+    void unloadedWorldsGetForgotten() {
+        World otherWorld = TestWorld.create("other");
+        ChannelReceivers receivers = new ChannelReceivers(List.of(new Location(world, 1, 64, 1), new Location(otherWorld, 1, 64, 1),
+                new Location(otherWorld, 100, 64, 1)));
+
+        assertTrue(receivers.removeWorld(otherWorld));
+        assertFalse(receivers.removeWorld(otherWorld));
+
+        assertEquals(1, receivers.size());
+        assertEquals(Set.of(Block.getBlockKey(1, 64, 1)), walk(receivers).get(0));
+    }
+}
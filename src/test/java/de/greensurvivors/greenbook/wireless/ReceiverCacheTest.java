@@ -0,0 +1,149 @@
+package de.greensurvivors.greenbook.wireless;
+
+import de.greensurvivors.greenbook.TestWorld;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReceiverCacheTest {
+    private final World world = TestWorld.create("world");
+    //current server tick of the tested cache
+    private int tick = 0;
+
+    private ChannelReceivers receivers(int count) {
+        ChannelReceivers receivers = new ChannelReceivers(List.of());
+
+        for (int i = 0; i < count; i++) {
+            receivers.add(new Location(world, i, 64, 0));
+        }
+
+        return receivers;
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedChannelFirst() {
+        ReceiverCache cache = new ReceiverCache(() -> tick);
+        cache.setLimits(2, 0, 0);
+        ChannelKey a = ChannelKey.of(null, "a"), b = ChannelKey.of(null, "b"), c = ChannelKey.of(null, "c");
+
+        cache.put(a, receivers(1));
+        cache.put(b, receivers(1));
+        //a is used again, so b is the least recently used one
+        cache.get(a);
+        cache.put(c, receivers(1));
+
+        assertEquals(List.of(b), cache.evict(key -> false));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void evictedChannelMissesAndCanGetLoadedAgain() {
+        ReceiverCache cache = new ReceiverCache(() -> tick);
+        cache.setLimits(1, 0, 0);
+        ChannelKey evicted = ChannelKey.of(UUID.randomUUID(), "evicted"), kept = ChannelKey.of(null, "kept");
+
+        cache.put(evicted, receivers(3));
+        cache.put(kept, receivers(1));
+        assertEquals(List.of(evicted), cache.evict(key -> false));
+
+        //the lookup after an eviction has to miss, so the caller loads the channel from storage again
+        assertNull(cache.get(evicted));
+        assertEquals(1, cache.getMisses());
+
+        ChannelReceivers reloaded = receivers(3);
+        cache.put(evicted, reloaded);
+        assertSame(reloaded, cache.get(evicted));
+        assertEquals(3, cache.get(evicted).size());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void pinnedChannelsNeverGetEvicted() {
+        ReceiverCache cache = new ReceiverCache(() -> tick);
+        cache.setLimits(1, 0, 0);
+        ChannelKey pinned = ChannelKey.of(null, "pinned"), other = ChannelKey.of(null, "other");
+
+        cache.put(pinned, receivers(1));
+        cache.put(other, receivers(1));
+
+        assertEquals(List.of(other), cache.evict(pinned::equals));
+        assertNotNull(cache.peek(pinned));
+
+        //the limit can't be kept, but the pinned channel stays
+        cache.put(other, receivers(1));
+        assertTrue(cache.evict(key -> true).isEmpty());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void evictsUntilReceiverLimitIsKept() {
+        ReceiverCache cache = new ReceiverCache(() -> tick);
+        cache.setLimits(0, 5, 0);
+        ChannelKey a = ChannelKey.of(null, "a"), b = ChannelKey.of(null, "b"), c = ChannelKey.of(null, "c");
+
+        cache.put(a, receivers(3));
+        cache.put(b, receivers(3));
+        cache.put(c, receivers(2));
+
+        assertEquals(List.of(a), cache.evict(key -> false));
+        assertEquals(5, cache.getReceiverCount());
+    }
+
+    @Test
+    void peekDoesNotCountAsHitOrMiss() {
+        ReceiverCache cache = new ReceiverCache(() -> tick);
+        ChannelKey a = ChannelKey.of(null, "a");
+
+        assertNull(cache.peek(a));
+        cache.put(a, receivers(1));
+        assertNotNull(cache.peek(a));
+
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    void unlimitedCacheNeverEvicts() {
+        ReceiverCache cache = new ReceiverCache(() -> tick);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(ChannelKey.of(null, "channel" + i), receivers(10));
+        }
+
+        assertTrue(cache.evict(key -> false).isEmpty());
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    void recentlyUsedChannelsStayPinned() {
+        ReceiverCache cache = new ReceiverCache(() -> tick);
+        cache.setLimits(1, 0, 100);
+        ChannelKey old = ChannelKey.of(null, "old"), hot = ChannelKey.of(null, "hot"), alsoHot = ChannelKey.of(null, "alsoHot");
+
+        cache.put(old, receivers(1));
+        tick = 150;
+        cache.put(hot, receivers(1));
+        tick = 200;
+        cache.put(alsoHot, receivers(1));
+
+        //only the channel not used within the last 100 ticks may go, even if the limit can't be kept
+        assertEquals(List.of(old), cache.evict(key -> false));
+        assertEquals(2, cache.size());
+
+        //once they cool down they get evicted as usual
+        tick = 300;
+        cache.get(alsoHot);
+        assertEquals(List.of(hot), cache.evict(key -> false));
+        assertNotNull(cache.peek(alsoHot));
+    }
+}
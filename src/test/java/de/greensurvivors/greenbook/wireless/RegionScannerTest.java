@@ -0,0 +1,67 @@
+package de.greensurvivors.greenbook.wireless;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionScannerTest {
+    /**
+     * @param y section coordinate
+     * @param palette names of the block states
+     * @param data packed palette indexes, null for a section of only one block state
+     * @return a section compound, the way the nbt reader reads it
+     */
+    private static Map<String, Object> section(int y, List<String> palette, long[] data) {
+        List<Map<String, Object>> blockStates = new ArrayList<>();
+        for (String name : palette) {
+            blockStates.add(Map.of("Name", name));
+        }
+
+        return Map.of("Y", (byte) y, "block_states", data == null ? Map.of("palette", blockStates) : Map.of("palette", blockStates, "data", data));
+    }
+
+    @Test
+    void readsTheBlockStateOfThePosition() {
+        //4 bits per block, 16 blocks per long. Block 1 of the section is the wall sign, block 2 a standing sign
+        long[] data = new long[16 * 16 * 16 / 16];
+        data[0] = (1L << 4) | (2L << 8);
+        List<Object> sections = List.of(
+                section(-1, List.of("minecraft:stone"), null),
+                section(4, List.of("minecraft:air", "minecraft:oak_wall_sign", "minecraft:oak_sign"), data));
+
+        assertEquals(Boolean.TRUE, RegionScanner.isWallSign(sections, 1, 64, 0));
+        assertEquals(Boolean.FALSE, RegionScanner.isWallSign(sections, 2, 64, 0));
+        assertEquals(Boolean.FALSE, RegionScanner.isWallSign(sections, 0, 64, 0));
+        //negative coordinates belong to the section below 0
+        assertEquals(Boolean.FALSE, RegionScanner.isWallSign(sections, -15, -3, -2));
+    }
+
+    @Test
+    void hangingWallSignsAreNoWallSigns() {
+        List<Object> sections = List.of(section(0, List.of("minecraft:oak_wall_hanging_sign"), null));
+
+        assertEquals(Boolean.FALSE, RegionScanner.isWallSign(sections, 0, 0, 0));
+    }
+
+    @Test
+    void unknownWithoutSections() {
+        //chunks from before minecraft 1.18, or sections that aren't saved
+        assertNull(RegionScanner.isWallSign(null, 0, 0, 0));
+        assertNull(RegionScanner.isWallSign(List.of(section(0, List.of("minecraft:air"), null)), 0, 16, 0));
+    }
+
+    @Test
+    void cancelledScannerDoesNotStartAScan() {
+        RegionScanner scanner = new RegionScanner((lines, ownerUUID) -> null, "greenbook:owner", 1);
+        scanner.cancel();
+
+        assertTrue(scanner.isCancelled());
+        assertTrue(scanner.scan(List.of()).isCancelled());
+    }
+}
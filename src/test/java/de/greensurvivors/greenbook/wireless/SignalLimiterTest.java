@@ -0,0 +1,111 @@
+package de.greensurvivors.greenbook.wireless;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignalLimiterTest {
+    private final UUID owner = UUID.randomUUID();
+    private final ChannelKey channel = ChannelKey.of(owner, "clock");
+    private final ChannelKey otherChannel = ChannelKey.of(owner, "other");
+    //every report of a throttled channel
+    private final List<ChannelKey> reports = new ArrayList<>();
+    private final SignalLimiter limiter = new SignalLimiter(reports::add);
+
+    /**
+     * @return number of signals of the channel that got through
+     */
+    private int send(ChannelKey channelKey, int signals, int tick) {
+        int acquired = 0;
+
+        for (int i = 0; i < signals; i++) {
+            if (limiter.tryAcquire(channelKey, tick)) {
+                acquired++;
+            }
+        }
+
+        return acquired;
+    }
+
+    @Test
+    void unlimitedByDefault() {
+        assertEquals(1000, send(channel, 1000, 0));
+        assertTrue(reports.isEmpty());
+    }
+
+    @Test
+    void channelLimitCountsPerSecond() {
+        limiter.setLimits(5, 0, 0);
+
+        for (int tick = 0; tick < 20; tick++) {
+            send(channel, 1, tick);
+        }
+        //the second tick 0 to 19 is used up, other channels are not affected
+        assertFalse(limiter.tryAcquire(channel, 19));
+        assertTrue(limiter.tryAcquire(otherChannel, 19));
+
+        //a new second starts over
+        assertEquals(5, send(channel, 10, 20));
+    }
+
+    @Test
+    void ownerLimitsCountAllChannelsOfTheOwner() {
+        limiter.setLimits(0, 3, 4);
+
+        assertEquals(2, send(channel, 2, 40));
+        assertEquals(1, send(otherChannel, 2, 40));
+        assertEquals(1, send(otherChannel, 2, 41));
+        assertEquals(0, send(channel, 1, 42));
+
+        //global channels and other owners have their own limits
+        assertEquals(3, send(ChannelKey.of(null, "global"), 5, 42));
+        assertEquals(3, send(ChannelKey.of(UUID.randomUUID(), "clock"), 5, 42));
+    }
+
+    @Test
+    void throttledChannelGetsReportedOncePerMinute() {
+        limiter.setLimits(1, 0, 0);
+
+        send(channel, 10, 0);
+        send(channel, 10, 20 * 30);
+        assertEquals(List.of(channel), reports);
+
+        send(channel, 10, 20 * 60);
+        send(otherChannel, 10, 20 * 60);
+        assertEquals(List.of(channel, channel, otherChannel), reports);
+    }
+
+    @Test
+    void pruningOnlyForgetsOldReports() {
+        limiter.setLimits(1, 0, 0);
+
+        send(channel, 2, 0);
+        send(otherChannel, 2, 20 * 30);
+        assertEquals(2, limiter.getReportedChannels());
+
+        limiter.pruneReports(20 * 60);
+        assertEquals(1, limiter.getReportedChannels());
+
+        //the channel reported within the last minute is still suppressed
+        send(otherChannel, 2, 20 * 61);
+        assertEquals(List.of(channel, otherChannel), reports);
+    }
+
+    @Test
+    void clearForgetsCountedSignals() {
+        limiter.setLimits(1, 0, 0);
+        send(channel, 2, 0);
+
+        limiter.clear();
+
+        assertTrue(limiter.tryAcquire(channel, 0));
+        send(channel, 1, 0);
+        assertEquals(List.of(channel, channel), reports);
+    }
+}